@@ -0,0 +1,136 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mediciones de las operaciones de bits ({@link BitArray}, los escritores y los lectores de bits) con códigos de
+ * largo variable, entre 1 y 20 bits, generados con semilla fija.
+ * <pre>
+ * mvn -B -Pbench verify -Djmh.args="BitBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitBenchmark {
+
+    /** MB de códigos, con 8 bits por código en promedio. */
+    @Param("4")
+    public int megas;
+
+    private Path directorio;
+    private String archivo;
+    private int cantidad;
+    private long[] codigos;
+    private int[] largos;
+    private long totalBits;
+    private BitArray arreglo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        Random random = new Random(1);
+        cantidad = (megas << 20) / 2;
+        codigos = new long[cantidad];
+        largos = new int[cantidad];
+        totalBits = 0;
+        for (int i = 0; i < cantidad; i++) {
+            largos[i] = 1 + random.nextInt(20);
+            codigos[i] = random.nextLong() & ((1L << largos[i]) - 1);
+            totalBits += largos[i];
+        }
+        directorio = Files.createTempDirectory("huffman-bits");
+        archivo = directorio.resolve("bits.bin").toString();
+        arreglo = new BitArray(totalBits);
+        bitArrayAppendBits();
+        channelBitWriter(); // los lectores leen este archivo
+    }
+
+    @TearDown(Level.Trial)
+    public void terminar() {
+        HuffmanBenchmark.borrar(directorio.toFile());
+    }
+
+    @Benchmark
+    public void bitArrayAppendBits() {
+        arreglo.resetAppend();
+        for (int i = 0; i < cantidad; i++) arreglo.appendBits(codigos[i], largos[i]);
+    }
+
+    @Benchmark
+    public long bitArrayGetBits() {
+        long posicion = 0, suma = 0;
+        for (int i = 0; i < cantidad; i++) {
+            suma += arreglo.getBits(posicion, largos[i]);
+            posicion += largos[i];
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public void fileBufferedBitWriter() throws IOException {
+        try (BitWriter writer = new FileBufferedBitWriter(directorio.resolve("escrito.bin").toString())) {
+            for (int i = 0; i < cantidad; i++) writer.write(codigos[i], largos[i]);
+        }
+    }
+
+    @Benchmark
+    public void channelBitWriter() throws IOException {
+        try (BitWriter writer = new ChannelBitWriter(archivo)) {
+            for (int i = 0; i < cantidad; i++) writer.write(codigos[i], largos[i]);
+        }
+    }
+
+    @Benchmark
+    public long fileBufferedBitReaderPeekBits() throws IOException {
+        long suma = 0;
+        try (BitReader reader = new FileBufferedBitReader(archivo)) {
+            for (int i = 0; i < cantidad; i++) {
+                suma += reader.peekBits(largos[i]);
+                reader.skipBits(largos[i]);
+            }
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public long fileBufferedBitReaderNextBit() throws IOException {
+        long unos = 0;
+        try (BitReader reader = new FileBufferedBitReader(archivo)) {
+            for (long i = 0; i < totalBits; i++) if (reader.nextBit()) unos++;
+        }
+        return unos;
+    }
+
+    @Benchmark
+    public long mappedBitReaderPeekBits() throws IOException {
+        long suma = 0;
+        try (BitReader reader = new MappedBitReader(archivo)) {
+            for (int i = 0; i < cantidad; i++) {
+                suma += reader.peekBits(largos[i]);
+                reader.skipBits(largos[i]);
+            }
+        }
+        return suma;
+    }
+}
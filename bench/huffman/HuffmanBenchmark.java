@@ -0,0 +1,290 @@
+package huffman;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mediciones de rendimiento del compresor con JMH: construcción del árbol, tabla de códigos, compresión y
+ * descompresión en cada formato (dos pasadas, por rango, por bloques, con subflujos, con rachas, adaptativo, de
+ * orden 1 y en memoria). Las operaciones de bits se miden en {@link BitBenchmark}.
+ * <p>
+ * Los corpus generados son bytes uniformes, bytes sesgados (distribución geométrica), texto de palabras y un único
+ * símbolo, todos de {@code megas} MB y con semilla fija. Si {@code corpus} es la ruta de un archivo, se mide con ese
+ * archivo (por ejemplo {@code -p corpus=resources/input.txt}).
+ * </p>
+ * <pre>
+ * mvn -B -Pbench verify -Djmh.args="HuffmanBenchmark.decode -p corpus=texto -prof gc"
+ * </pre>
+ * Con {@code -prof gc}, JMH informa además la memoria asignada por operación ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HuffmanBenchmark {
+
+    /** Corpus generado ({@code uniforme}, {@code sesgado}, {@code texto}, {@code unico}) o ruta de un archivo. */
+    @Param({"uniforme", "sesgado", "texto", "unico"})
+    public String corpus;
+
+    /** Tamaño de los corpus generados, en MB. */
+    @Param("4")
+    public int megas;
+
+    private Path directorio;
+    private PrintStream consola;
+    private byte[] datos;
+    private long[] frecuencias;
+    private HuffmanTree arbol;
+
+    private String original;
+    private String salida;
+    private String descomprimido;
+
+    /** Archivos comprimidos de antemano para medir la descompresión de cada formato. */
+    private String secuencial;
+    private String conIndice;
+    private String paralelo;
+    private String subflujos;
+    private String rachas;
+    private String adaptativo;
+    private String contexto;
+
+    private final HuffmanTreeBuilder constructor = new HuffmanTreeBuilder(256);
+    private final byte[] largos = new byte[256];
+    private final long[] codigos = new long[256];
+
+    private ByteBuffer origen;
+    private ByteBuffer destino;
+    private ByteBuffer comprimidoCodec;
+    private ByteBuffer copia;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        consola = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // el compresor informa cada operación
+        directorio = Files.createTempDirectory("huffman-bench");
+        datos = Files.isRegularFile(Paths.get(corpus)) ? Files.readAllBytes(Paths.get(corpus))
+                : generarCorpus(corpus, megas << 20);
+        frecuencias = new long[256];
+        for (byte b : datos) frecuencias[b & 0xFF]++;
+        arbol = HuffmanTree.of(frecuencias);
+
+        original = directorio.resolve("original").toString();
+        Files.write(Paths.get(original), datos);
+        salida = directorio.resolve("salida.huf").toString();
+        descomprimido = directorio.resolve("salida.out").toString();
+
+        secuencial = comprimir("secuencial", HuffmanEncoder::encode);
+        conIndice = comprimir("indice", e -> {
+            e.setIntervaloIndice(64 * 1024);
+            e.encode();
+        });
+        paralelo = comprimir("paralelo", e -> e.encodeParalelo(HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO));
+        subflujos = comprimir("subflujos", e -> {
+            e.setSubflujos(4);
+            e.encodeParalelo(HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO);
+        });
+        rachas = comprimir("rachas", e -> {
+            e.setRachas(true);
+            e.encodeParalelo(HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO);
+        });
+        adaptativo = comprimir("adaptativo", HuffmanEncoder::encodeAdaptativo);
+        contexto = comprimir("contexto", HuffmanEncoder::encodeContexto);
+
+        origen = ByteBuffer.allocateDirect(datos.length).put(datos);
+        destino = ByteBuffer.allocateDirect(HuffmanCodec.maxCompressedLength(datos.length));
+        comprimidoCodec = ByteBuffer.allocateDirect(HuffmanCodec.maxCompressedLength(datos.length));
+        origen.clear();
+        HuffmanCodec.porHilo().compress(origen, comprimidoCodec);
+        comprimidoCodec.flip();
+        copia = ByteBuffer.allocateDirect(datos.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void terminar() {
+        System.setOut(consola);
+        borrar(directorio.toFile());
+    }
+
+    @Benchmark
+    public HuffmanTree arbol() {
+        return HuffmanTree.of(frecuencias);
+    }
+
+    @Benchmark
+    public String[] encodeTable() {
+        return arbol.encodeTable();
+    }
+
+    @Benchmark
+    public long[] constructor() {
+        constructor.codeLengths(frecuencias, largos);
+        constructor.codes(largos, codigos);
+        return codigos;
+    }
+
+    @Benchmark
+    public void encode() {
+        new HuffmanEncoder(original, salida).encode();
+    }
+
+    @Benchmark
+    public void encodeMuestra() {
+        HuffmanEncoder encoder = new HuffmanEncoder(original, salida);
+        encoder.setMuestra(1 << 20, 16);
+        encoder.encode();
+    }
+
+    @Benchmark
+    public void decode() {
+        new HuffmanDecoder(secuencial, descomprimido).decode();
+    }
+
+    @Benchmark
+    public byte[] decodeRange() throws IOException {
+        return new HuffmanDecoder(conIndice, descomprimido).decodeRange(datos.length / 2,
+                Math.min(datos.length, 4096));
+    }
+
+    @Benchmark
+    public void encodeParalelo() {
+        new HuffmanEncoder(original, salida).encodeParalelo(HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO);
+    }
+
+    @Benchmark
+    public void decodeParalelo() {
+        new HuffmanDecoder(paralelo, descomprimido).decode();
+    }
+
+    @Benchmark
+    public void decodeSubflujos4() {
+        new HuffmanDecoder(subflujos, descomprimido).decode();
+    }
+
+    @Benchmark
+    public void encodeRachas() {
+        HuffmanEncoder encoder = new HuffmanEncoder(original, salida);
+        encoder.setRachas(true);
+        encoder.encodeParalelo(HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO);
+    }
+
+    @Benchmark
+    public void decodeRachas() {
+        new HuffmanDecoder(rachas, descomprimido).decode();
+    }
+
+    @Benchmark
+    public void encodeAdaptativo() {
+        new HuffmanEncoder(original, salida).encodeAdaptativo();
+    }
+
+    @Benchmark
+    public void decodeAdaptativo() {
+        new HuffmanDecoder(adaptativo, descomprimido).decode();
+    }
+
+    @Benchmark
+    public void encodeContexto() {
+        new HuffmanEncoder(original, salida).encodeContexto();
+    }
+
+    @Benchmark
+    public void decodeContexto() {
+        new HuffmanDecoder(contexto, descomprimido).decode();
+    }
+
+    @Benchmark
+    public int codecCompress() {
+        origen.clear();
+        destino.clear();
+        return HuffmanCodec.porHilo().compress(origen, destino);
+    }
+
+    @Benchmark
+    public int codecDecompress() throws IOException {
+        comprimidoCodec.rewind();
+        copia.clear();
+        return HuffmanCodec.porHilo().decompress(comprimidoCodec, copia);
+    }
+
+    /**
+     * Comprime el corpus en un archivo propio del formato, para las mediciones de descompresión.
+     */
+    private String comprimir(String nombre, Consumer<HuffmanEncoder> formato) {
+        String archivo = directorio.resolve(nombre + ".huf").toString();
+        formato.accept(new HuffmanEncoder(original, archivo));
+        return archivo;
+    }
+
+    /**
+     * Genera un corpus sintético de {@code largo} bytes, con semilla fija para que sea reproducible.
+     *
+     * @throws IllegalArgumentException Si el nombre no es un corpus conocido.
+     */
+    static byte[] generarCorpus(String nombre, int largo) {
+        Random random = new Random(42);
+        byte[] out = new byte[largo];
+        switch (nombre) {
+            case "uniforme" -> random.nextBytes(out);
+            case "sesgado" -> { // geométrica de p = 1/4: pocos símbolos muy frecuentes y una cola larga
+                for (int i = 0; i < largo; i++) {
+                    int s = (int) (Math.log(1 - random.nextDouble()) / Math.log(0.75));
+                    out[i] = (byte) Math.min(s, 255);
+                }
+            }
+            case "texto" -> {
+                String[] palabras = {"el", "la", "de", "que", "y", "en", "un", "árbol", "código", "Huffman",
+                        "compresión", "bits", "frecuencia", "nodo", "archivo", "datos", "tabla", "símbolo", "es", "por"};
+                List<byte[]> codificadas = new ArrayList<>();
+                for (String palabra : palabras) codificadas.add(palabra.getBytes(StandardCharsets.UTF_8));
+                ByteArrayOutputStream texto = new ByteArrayOutputStream(largo + 64);
+                while (texto.size() < largo) {
+                    texto.writeBytes(codificadas.get((int) Math.min(codificadas.size() - 1,
+                            Math.abs(random.nextGaussian()) * 6)));
+                    texto.write(random.nextInt(12) == 0 ? '\n' : ' ');
+                }
+                out = Arrays.copyOf(texto.toByteArray(), largo);
+            }
+            case "unico" -> Arrays.fill(out, (byte) 'a');
+            default -> throw new IllegalArgumentException("corpus desconocido: " + nombre);
+        }
+        return out;
+    }
+
+    static void borrar(File archivo) {
+        File[] hijos = archivo.listFiles();
+        if (hijos != null) for (File hijo : hijos) borrar(hijo);
+        archivo.delete();
+    }
+}
@@ -0,0 +1,220 @@
+package huffman;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Árbol de Huffman adaptativo (algoritmo FGK: Faller, Gallager y Knuth).
+ * <p>
+ * A diferencia de {@link HuffmanTree}, no necesita conocer las frecuencias de antemano: codificador y
+ * decodificador parten del mismo árbol con un solo nodo NYT ("not yet transmitted") y lo actualizan después de cada
+ * símbolo, así que el archivo se comprime en una sola lectura y sin tabla en la cabecera. Un símbolo que aparece por
+ * primera vez se escribe como el código del NYT seguido de sus {@link #BITS_SIMBOLO} bits. El final de los datos se
+ * marca con el símbolo {@link #FIN}, por lo que tampoco hace falta conocer el largo de la entrada (sirve para la
+ * entrada estándar o flujos sin fin conocido).
+ * </p>
+ * <p>
+ * El árbol se guarda en arreglos indexados por el número de cada nodo. Se mantiene la propiedad de hermanos: los
+ * pesos no decrecen al aumentar el número y los hermanos tienen números consecutivos; la raíz tiene el número mayor.
+ * Para incrementar un nodo primero se intercambia con el nodo de mayor número de igual peso (el "líder").
+ * </p>
+ */
+public class AdaptiveHuffmanTree {
+
+    /** Símbolo que marca el final de los datos. */
+    static final int FIN = 256;
+
+    /** Bits con los que se escribe un símbolo nuevo después del código del NYT. */
+    static final int BITS_SIMBOLO = 9;
+
+    /** Cantidad máxima de nodos: 257 hojas, 257 nodos internos (cada uno fue antes el NYT) y el NYT final. */
+    private static final int NODOS = 2 * (FIN + 1) + 1;
+
+    /** Valor de {@link #simbolo} en los nodos internos y el NYT. */
+    private static final int INTERNO = -1;
+
+    private final long[] peso = new long[NODOS];
+    private final int[] padre = new int[NODOS];
+    private final int[] izquierdo = new int[NODOS];
+    private final int[] derecho = new int[NODOS];
+
+    /** Símbolo de cada hoja, {@link #INTERNO} en los demás nodos. */
+    private final int[] simbolo = new int[NODOS];
+
+    /** Nodo hoja de cada símbolo, -1 si todavía no aparece. */
+    private final int[] hoja = new int[FIN + 1];
+
+    /** Número de la raíz, el mayor de todos. */
+    private final int raiz = NODOS - 1;
+
+    /** Nodo NYT actual, siempre el de menor número. */
+    private int nyt;
+
+    /** Bits del código de un nodo, desde la hoja hacia la raíz. */
+    private final boolean[] camino = new boolean[NODOS];
+
+    /**
+     * Crea el árbol inicial, que sólo tiene el NYT (en la raíz).
+     */
+    public AdaptiveHuffmanTree() {
+        Arrays.fill(padre, -1);
+        Arrays.fill(izquierdo, -1);
+        Arrays.fill(derecho, -1);
+        Arrays.fill(simbolo, INTERNO);
+        Arrays.fill(hoja, -1);
+        nyt = raiz;
+    }
+
+    /**
+     * Escribe el código actual de un símbolo y actualiza el árbol.
+     *
+     * @param s      Símbolo entre 0 y {@link #FIN}.
+     * @param writer Escritor de bits.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void codificar(int s, BitWriter writer) throws IOException {
+        if (hoja[s] == -1) {
+            escribirCodigo(nyt, writer);
+            writer.write(s, BITS_SIMBOLO);
+        } else {
+            escribirCodigo(hoja[s], writer);
+        }
+        actualizar(s);
+    }
+
+    /**
+     * Lee un símbolo recorriendo el árbol bit a bit y actualiza el árbol igual que lo hizo el codificador.
+     *
+     * @param reader Lector de bits posicionado al inicio de un código.
+     * @return El símbolo leído, entre 0 y {@link #FIN}.
+     * @throws IOException Si el archivo termina o el símbolo es inválido.
+     */
+    public int decodificar(BitReader reader) throws IOException {
+        int nodo = raiz;
+        while (izquierdo[nodo] != -1) {
+            nodo = reader.nextBit() ? derecho[nodo] : izquierdo[nodo];
+        }
+        int s;
+        if (nodo == nyt) {
+            s = (int) reader.peekBits(BITS_SIMBOLO);
+            reader.skipBits(BITS_SIMBOLO);
+            if (s > FIN || hoja[s] != -1) throw new IOException("Símbolo nuevo inválido: " + s);
+        } else {
+            s = simbolo[nodo];
+        }
+        actualizar(s);
+        return s;
+    }
+
+    /**
+     * Escribe el camino desde la raíz hasta {@code nodo} (0 a la izquierda, 1 a la derecha).
+     */
+    private void escribirCodigo(int nodo, BitWriter writer) throws IOException {
+        int largo = 0;
+        for (int n = nodo; n != raiz; n = padre[n]) {
+            camino[largo++] = derecho[padre[n]] == n;
+        }
+        while (largo > 0) { // de a 57 bits, en el orden de la raíz a la hoja
+            int n = Math.min(largo, 57);
+            long codigo = 0;
+            for (int i = 0; i < n; i++) {
+                codigo = (codigo << 1) | (camino[--largo] ? 1 : 0);
+            }
+            writer.write(codigo, n);
+        }
+    }
+
+    /**
+     * Incrementa el peso del símbolo y de sus ancestros, manteniendo la propiedad de hermanos. Si el símbolo es
+     * nuevo, el NYT se divide en un nuevo NYT (izquierda) y la hoja del símbolo (derecha).
+     */
+    private void actualizar(int s) {
+        int nodo;
+        if (hoja[s] == -1) {
+            int viejo = nyt;
+            nodo = viejo - 1; // la hoja nueva
+            nyt = viejo - 2;
+            izquierdo[viejo] = nyt;
+            derecho[viejo] = nodo;
+            padre[nyt] = viejo;
+            padre[nodo] = viejo;
+            simbolo[nodo] = s;
+            hoja[s] = nodo;
+        } else {
+            nodo = hoja[s];
+        }
+        while (nodo != -1) {
+            int lider = nodo;
+            while (lider + 1 < NODOS && peso[lider + 1] == peso[nodo]) lider++;
+            if (lider != nodo && lider != padre[nodo]) {
+                intercambiar(nodo, lider);
+                nodo = lider;
+            }
+            peso[nodo]++;
+            nodo = padre[nodo];
+        }
+    }
+
+    /**
+     * Intercambia los subárboles que ocupan los números {@code a} y {@code b}. Ambos tienen el mismo peso, por lo que
+     * la propiedad de hermanos se mantiene; los números (y los padres de cada número) no cambian.
+     */
+    private void intercambiar(int a, int b) {
+        int t = izquierdo[a]; izquierdo[a] = izquierdo[b]; izquierdo[b] = t;
+        t = derecho[a]; derecho[a] = derecho[b]; derecho[b] = t;
+        t = simbolo[a]; simbolo[a] = simbolo[b]; simbolo[b] = t;
+        reenlazar(a);
+        reenlazar(b);
+    }
+
+    /**
+     * Apunta los hijos (o el símbolo, si es hoja) al número {@code n} después de un intercambio.
+     */
+    private void reenlazar(int n) {
+        if (izquierdo[n] != -1) {
+            padre[izquierdo[n]] = n;
+            padre[derecho[n]] = n;
+        }
+        if (simbolo[n] != INTERNO) hoja[simbolo[n]] = n;
+    }
+
+    /**
+     * Comprime todo un flujo de entrada, terminando con el símbolo {@link #FIN}.
+     *
+     * @param input  Datos a comprimir, se leen una sola vez.
+     * @param writer Escritor de bits.
+     * @return Cantidad de bytes leídos.
+     * @throws IOException Si ocurre un error de lectura o escritura.
+     */
+    public static long comprimir(InputStream input, BitWriter writer) throws IOException {
+        AdaptiveHuffmanTree arbol = new AdaptiveHuffmanTree();
+        byte[] bloque = new byte[64 * 1024];
+        long total = 0;
+        int leidos;
+        while ((leidos = input.read(bloque)) != -1) {
+            for (int i = 0; i < leidos; i++) {
+                arbol.codificar(bloque[i] & 0xFF, writer);
+            }
+            total += leidos;
+        }
+        arbol.codificar(FIN, writer);
+        return total;
+    }
+
+    /**
+     * Descomprime hasta encontrar el símbolo {@link #FIN}.
+     *
+     * @param reader Lector de bits posicionado al inicio de los códigos.
+     * @param output Destino de los datos descomprimidos.
+     * @throws IOException Si ocurre un error de lectura o escritura, o los datos están dañados.
+     */
+    public static void descomprimir(BitReader reader, OutputStream output) throws IOException {
+        AdaptiveHuffmanTree arbol = new AdaptiveHuffmanTree();
+        int s;
+        while ((s = arbol.decodificar(reader)) != FIN) {
+            output.write(s);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package huffman;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Canal de escritura con una etapa de escritura propia: los bytes se copian a buffers directos que un hilo aparte
+ * entrega al canal de destino, mientras quien escribe sigue calculando.
+ * <p>
+ * Es la etapa final del codificador y del decodificador: {@link ChannelBitWriter} (o el flujo de salida del
+ * decodificador) vacía sus bytes aquí sin esperar al disco, y el hilo escritor los lleva al archivo en el mismo
+ * orden. Igual que en {@link PrefetchInputStream}, una cantidad fija de buffers circula entre una cola acotada de
+ * libres y otra de llenos: si el disco no da abasto, quien escribe se detiene al no encontrar buffers libres.
+ * </p>
+ * <p>
+ * Un error de escritura se lanza en la siguiente escritura o al cerrar. Hasta entonces el hilo escritor sigue
+ * devolviendo los buffers a la cola de libres sin escribirlos, para que quien escribe nunca quede esperando.
+ * </p>
+ */
+public class AsyncChannelWriter implements WritableByteChannel {
+
+    /** Tamaño por defecto de cada buffer: 64 KB. */
+    static final int TAMANO_BUFFER = 64 * 1024;
+
+    /** Cantidad por defecto de buffers: mientras se escribe uno al disco, se pueden llenar los demás. */
+    static final int BUFFERS = 4;
+
+    /** Marca que se deja en la cola de llenos al cerrar. */
+    private static final ByteBuffer FIN = ByteBuffer.allocate(0);
+
+    /** Canal donde el hilo escritor escribe los buffers. */
+    private final WritableByteChannel destino;
+
+    /** Buffers vacíos, listos para recibir bytes. */
+    private final BlockingQueue<ByteBuffer> libres;
+
+    /** Buffers llenos, en el orden en que se escribieron, y al final {@link #FIN}. */
+    private final BlockingQueue<ByteBuffer> llenos;
+
+    /** Hilo de la etapa de escritura. */
+    private final Thread escritor;
+
+    /** Primer error del hilo escritor. */
+    private volatile IOException error;
+
+    /** Buffer que se está llenando, null si hay que tomar uno libre. */
+    private ByteBuffer actual;
+
+    /** Si el canal sigue abierto. */
+    private boolean abierto = true;
+
+    /**
+     * Crea el canal con {@link #BUFFERS} buffers de {@link #TAMANO_BUFFER} bytes.
+     *
+     * @param destino Canal de destino, que se cierra al cerrar este canal.
+     */
+    public AsyncChannelWriter(WritableByteChannel destino) {
+        this(destino, TAMANO_BUFFER, BUFFERS);
+    }
+
+    /**
+     * Crea el canal y el hilo escritor.
+     *
+     * @param destino      Canal de destino, que se cierra al cerrar este canal.
+     * @param tamanoBuffer Tamaño de cada buffer en bytes.
+     * @param buffers      Cantidad de buffers, al menos 2 para que escritura y cálculo se superpongan.
+     * @throws IllegalArgumentException Si el tamaño o la cantidad de buffers no son positivos.
+     */
+    public AsyncChannelWriter(WritableByteChannel destino, int tamanoBuffer, int buffers) {
+        if (tamanoBuffer < 1 || buffers < 1) {
+            throw new IllegalArgumentException("buffers inválidos: " + buffers + " × " + tamanoBuffer);
+        }
+        this.destino = destino;
+        this.libres = new ArrayBlockingQueue<>(buffers);
+        this.llenos = new ArrayBlockingQueue<>(buffers + 1); // siempre cabe la marca de fin
+        for (int i = 0; i < buffers; i++) libres.add(ByteBuffer.allocateDirect(tamanoBuffer));
+        this.escritor = new Thread(this::escribir, "huffman-escritura");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Ciclo del hilo escritor: entrega cada buffer lleno al destino y lo devuelve a los libres, hasta la marca de
+     * fin.
+     */
+    private void escribir() {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = llenos.take()) != FIN) {
+                if (error == null) {
+                    try {
+                        while (buffer.hasRemaining()) destino.write(buffer);
+                    } catch (Throwable e) { // también errores del canal no declarados: quien escribe no debe esperar
+                        error = e instanceof IOException io ? io : new IOException("Error de escritura", e);
+                    }
+                }
+                buffer.clear();
+                libres.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            error = new InterruptedIOException("Escritura interrumpida");
+        }
+    }
+
+    /**
+     * Copia los bytes a los buffers de la etapa de escritura. Sólo espera si no quedan buffers libres.
+     *
+     * @param origen Bytes a escribir; se consumen todos.
+     * @return La cantidad de bytes copiados.
+     * @throws IOException Si el canal está cerrado, una escritura anterior falló o el hilo fue interrumpido.
+     */
+    @Override
+    public int write(ByteBuffer origen) throws IOException {
+        if (!abierto) throw new ClosedChannelException();
+        if (error != null) throw error;
+        int out = origen.remaining();
+        while (origen.hasRemaining()) {
+            if (actual == null) actual = esperar(libres);
+            int n = Math.min(origen.remaining(), actual.remaining());
+            ByteBuffer tramo = origen.slice();
+            tramo.limit(n);
+            actual.put(tramo);
+            origen.position(origen.position() + n);
+            if (!actual.hasRemaining()) entregar();
+        }
+        return out;
+    }
+
+    /**
+     * Entrega el buffer actual al hilo escritor.
+     */
+    private void entregar() throws IOException {
+        actual.flip();
+        ByteBuffer buffer = actual;
+        actual = null;
+        try {
+            llenos.put(buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Escritura interrumpida");
+        }
+    }
+
+    private static ByteBuffer esperar(BlockingQueue<ByteBuffer> cola) throws IOException {
+        try {
+            return cola.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Escritura interrumpida");
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return abierto;
+    }
+
+    /**
+     * Entrega el último buffer, espera a que el hilo escritor termine y cierra el destino.
+     *
+     * @throws IOException Si alguna escritura falló o ocurre un error al cerrar el destino.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!abierto) return;
+        abierto = false;
+        try {
+            if (actual != null && actual.position() > 0) entregar();
+            llenos.put(FIN);
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            escritor.interrupt();
+            throw new InterruptedIOException("Escritura interrumpida");
+        } finally {
+            destino.close();
+        }
+        if (error != null) throw error;
+    }
+}
@@ -0,0 +1,307 @@
+package huffman;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Clase que implementa un BitArray, también llamado bitmap, bitset, bitvector.
+ *
+ * Permite manejar a nivel de bits una secuencica de largo arbitrario de bits.
+ *
+ * @author Luis Gajardo, Miguel Romero y Fernando Santolaya
+ * Basado en
+ * http://stackoverflow.com/questions/15736626/java-how-to-create-and-manipulate-a-bit-array-with-length-of-10-million-bits
+ */
+public class BitArray {
+    private static final int WORD_SIZE = Long.SIZE;
+    private long length;
+    protected long bits[];
+    /** Cantidad de bits agregados con appendBits. */
+    private long appended;
+
+    /**
+     * Crea un Array de bits.
+     *
+     * @param size es la cantidad de bits que tiene el BitArray this.
+     */
+    public BitArray(long size) {
+        this.length = size;
+        //se constuye un arreglo con ceil(length/word_size) bloques.
+        bits = new long[(int) ((size - 1) / WORD_SIZE + 1)];
+    }
+
+    private BitArray() {
+        bits = null;
+        length = 0;
+    }
+
+    /**
+     * Permite conocer el valor 0 o 1 de la i-ésima posición del BitArray
+     * los bits están enumerados partiendo desde 0 en adelante. el bit 0 es el primero por la izquierda.
+     * @param pos La posición del bit que se desea obtener.
+     * @return El valor del bit en la posición especificada. 'true' si es 1, 'false' si es 0.
+     * @throws IndexOutOfBoundsException Si la posición especificada está fuera del rango válido.
+     */
+    public boolean getBit(long pos) {
+        if (pos < 0) throw new IndexOutOfBoundsException("pos < 0: " + pos);
+        if (pos >= length) throw new IndexOutOfBoundsException("pos >= length():" + pos);
+        return (bits[(int) (pos >>> 6)] << pos) < 0; // el bit pos % 64 de la palabra pasa a ser el signo
+    }
+
+    /**
+     * Establece el valor del bit en la posición especificada.
+     * Este método establece en 1 el valor del bit en la posición especificada del dato.
+     *
+     * @param pos La posición del bit que se desea establecer en 1.
+     * @throws IndexOutOfBoundsException Si la posición especificada está fuera del rango válido.
+     */
+    public void setBit(long pos) {
+        if (pos < 0) throw new IndexOutOfBoundsException("pos < 0: " + pos);
+        if (pos >= length) throw new IndexOutOfBoundsException("pos >= length():" + pos);
+        bits[(int) (pos >>> 6)] |= Long.MIN_VALUE >>> pos; // el desplazamiento de un long sólo usa pos % 64
+    }
+
+    /**
+     * Establece el valor del bit en la posición especificada.
+     * Este método establece el valor del bit en la posición especificada del dato
+     * con el valor booleano proporcionado.
+     *
+     * @param pos La posición del bit que se desea establecer.
+     * @param b El valor booleano que se asignará al bit en la posición especificada.
+     *           'true' para establecer el bit en 1, 'false' para establecerlo en 0.
+     * @throws IndexOutOfBoundsException Si la posición especificada está fuera del rango válido.
+     */
+    public void setBit(long pos, boolean b) {
+        if (pos < 0) throw new IndexOutOfBoundsException("pos < 0: " + pos);
+        if (pos >= length) throw new IndexOutOfBoundsException("pos >= length():" + pos);
+        if (b) {
+            bits[(int) (pos >>> 6)] |= Long.MIN_VALUE >>> pos;
+        } else {
+            bits[(int) (pos >>> 6)] &= ~(Long.MIN_VALUE >>> pos);
+        }
+    }
+
+    /**
+     * Establece el valor del bit en la posición especificada a 0.
+     * Este método establece el valor del bit en la posición especificada del dato a 0.
+     *
+     * @param pos La posición del bit que se desea poner en 0.
+     * @throws IndexOutOfBoundsException Si la posición especificada está fuera del rango válido.
+     */
+    public void clearBit(long pos) {
+        if (pos < 0) throw new IndexOutOfBoundsException("pos < 0: " + pos);
+        if (pos >= length) throw new IndexOutOfBoundsException("pos >= length():" + pos);
+        bits[(int) (pos >>> 6)] &= ~(Long.MIN_VALUE >>> pos);
+    }
+
+    /**
+     * Obtiene de una vez {@code n} bits consecutivos a partir de la posición especificada.
+     * Lee a lo más dos palabras, sin recorrer bit a bit.
+     *
+     * @param pos La posición del primer bit.
+     * @param n   Cantidad de bits, entre 0 y 64.
+     * @return Los bits en los {@code n} bits menos significativos, el primero de ellos el más significativo.
+     * @throws IndexOutOfBoundsException Si el rango [pos, pos + n) está fuera del BitArray.
+     */
+    public long getBits(long pos, int n) {
+        checkRange(pos, n);
+        if (n == 0) return 0;
+        int word = (int) (pos >>> 6);
+        int offset = (int) (pos & (WORD_SIZE - 1));
+        long out = bits[word] << offset;
+        if (offset + n > WORD_SIZE) out |= bits[word + 1] >>> (WORD_SIZE - offset);
+        return out >>> (WORD_SIZE - n);
+    }
+
+    /**
+     * Escribe de una vez los {@code n} bits menos significativos de {@code value} a partir de la posición
+     * especificada, comenzando por el más significativo de ellos. Modifica a lo más dos palabras.
+     *
+     * @param pos   La posición del primer bit.
+     * @param value Valor cuyos bits menos significativos se escriben.
+     * @param n     Cantidad de bits, entre 0 y 64.
+     * @throws IndexOutOfBoundsException Si el rango [pos, pos + n) está fuera del BitArray.
+     */
+    public void setBits(long pos, long value, int n) {
+        checkRange(pos, n);
+        if (n == 0) return;
+        int word = (int) (pos >>> 6);
+        int offset = (int) (pos & (WORD_SIZE - 1));
+        long aligned = value << (WORD_SIZE - n); // los n bits alineados a la izquierda
+        long mask = -1L << (WORD_SIZE - n);
+        bits[word] = (bits[word] & ~(mask >>> offset)) | (aligned >>> offset);
+        if (offset + n > WORD_SIZE) {
+            int shift = WORD_SIZE - offset;
+            bits[word + 1] = (bits[word + 1] & ~(mask << shift)) | (aligned << shift);
+        }
+    }
+
+    /**
+     * Agrega {@code n} bits a continuación de los agregados anteriormente con este método (a partir de
+     * {@link #appendPosition()}). Permite usar el BitArray como un buffer que se llena de forma secuencial.
+     *
+     * @param value Valor cuyos bits menos significativos se agregan.
+     * @param n     Cantidad de bits, entre 0 y 64.
+     * @throws IndexOutOfBoundsException Si los bits no caben en el BitArray.
+     */
+    public void appendBits(long value, int n) {
+        setBits(appended, value, n);
+        appended += n;
+    }
+
+    /**
+     * @return La cantidad de bits agregados con {@link #appendBits(long, int)} desde el último
+     * {@link #resetAppend()}.
+     */
+    public long appendPosition() {
+        return appended;
+    }
+
+    /**
+     * Vuelve a agregar bits desde la posición 0. No modifica los bits.
+     */
+    public void resetAppend() {
+        appended = 0;
+    }
+
+    /**
+     * Copia {@code n} bits de este BitArray a otro. Si ambas posiciones están alineadas a palabra, las palabras
+     * completas se copian con {@link System#arraycopy}; si no, se copian de a 64 bits.
+     *
+     * @param srcPos Posición del primer bit a copiar en este BitArray.
+     * @param dest   BitArray de destino (puede ser this si los rangos no se superponen).
+     * @param destPos Posición en el destino.
+     * @param n      Cantidad de bits a copiar.
+     * @throws IndexOutOfBoundsException Si alguno de los rangos está fuera de su BitArray.
+     */
+    public void copyBits(long srcPos, BitArray dest, long destPos, long n) {
+        if (n < 0 || srcPos < 0 || srcPos + n > length) throw new IndexOutOfBoundsException("origen fuera de rango");
+        if (destPos < 0 || destPos + n > dest.length) throw new IndexOutOfBoundsException("destino fuera de rango");
+        if (((srcPos | destPos) & (WORD_SIZE - 1)) == 0) {
+            int words = (int) (n >>> 6);
+            System.arraycopy(bits, (int) (srcPos >>> 6), dest.bits, (int) (destPos >>> 6), words);
+            long done = (long) words * WORD_SIZE;
+            srcPos += done;
+            destPos += done;
+            n -= done;
+        }
+        while (n > 0) {
+            int chunk = (int) Math.min(n, WORD_SIZE);
+            dest.setBits(destPos, getBits(srcPos, chunk), chunk);
+            srcPos += chunk;
+            destPos += chunk;
+            n -= chunk;
+        }
+    }
+
+    private void checkRange(long pos, int n) {
+        if (n < 0 || n > WORD_SIZE) throw new IllegalArgumentException("n fuera de rango: " + n);
+        if (pos < 0) throw new IndexOutOfBoundsException("pos < 0: " + pos);
+        if (pos + n > length) throw new IndexOutOfBoundsException("pos + n > length():" + (pos + n));
+    }
+
+    /**
+     * Devuelve la longitud en bits de la secuencia.
+     * Este método devuelve la cantidad de bits total de la secuencia de bits.
+     *
+     * @return La cantidad de bit en el BitArray
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Retorna el tamaño del BitArray en bytes.
+     * Este método devuelve el tamaño total del BitArray en bytes.
+     *
+     * @return El tamaño del BitArray en bytes.
+     */
+    public long size() {
+        //8 por variable this.length
+        //4 por bits.length
+        //8 por la referencia a bits (pensando en arquitectura de 64 bits, peor caso).
+
+        return (bits.length * WORD_SIZE) / 8 + 8 + 4 + 8;
+    }
+
+    /**
+     * Retorna una representación de cadena de bits del BitArray como un String.
+     * Este método genera una cadena de caracteres que representa los bits almacenados en el BitArray.
+     *
+     * @return Una representación de cadena de bits del BitArray como String.
+     */
+    @Override
+    public String toString() {
+        String out = "";
+        for (int i = 0; i < length; i++) {
+            out += getBit(i) ? "1" : "0";
+        }
+        return out;
+    }
+    /**
+     * Retorna un BitArray creado a partir de un valor de byte.
+     *
+     * @param bitsString El valor del byte del cual se creará el BitArray.
+     * @return Un nuevo BitArray creado a partir del valor de byte especificado.
+     */
+    public static BitArray valueOf(byte bitsString) {
+        BitArray output = new BitArray(Byte.SIZE);
+        output.bits[0] |= ((long) bitsString) << (WORD_SIZE - 8);
+        return output;
+    }
+    /**
+     * Retorna un BitArray creado a partir de un valor de long.
+     *
+     * @param bitsString El valor de long del cual se creará el BitArray.
+     * @return Un nuevo BitArray creado a partir del valor de long especificado.
+     */
+    public static BitArray valueOf(long bitsString) {
+        BitArray output = new BitArray(Long.SIZE);
+        output.bits[0] = bitsString;
+        return output;
+    }
+    /**
+     * Retorna un BitArray creado a partir de un arreglo de long.
+     *
+     * @param bitsString El arreglo de long del cual se creará el BitArray.
+     * @return Un nuevo BitArray creado a partir del arreglo de long especificado.
+     */
+    public static BitArray valueOf(long[] bitsString) {
+        BitArray output = new BitArray();
+        output.length = (long) bitsString.length * Long.SIZE;
+        output.bits = bitsString.clone();
+        return output;
+    }
+
+    /**
+     * Retorna un arreglo de bytes que representa los bits almacenados en el BitArray.
+     *
+     * @return Un arreglo de bytes que representa los bits almacenados en el BitArray.
+     */
+    public byte[] toByteArray() {
+        byte[] output = new byte[Long.BYTES * bits.length];
+        int count = 0;
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            for (int j = 1; j < Long.BYTES; j++) {
+                output[count++] = (byte) (word >>> (WORD_SIZE - (8 * j)));
+            }
+            output[count++] = (byte) word;
+        }
+        return output;
+    }
+
+    /**
+     * Copia los primeros {@code n} bytes del BitArray en un arreglo existente, sin crear uno nuevo.
+     *
+     * @param output Arreglo de destino, de al menos {@code n} bytes.
+     * @param n      Cantidad de bytes a copiar.
+     * @throws IndexOutOfBoundsException Si el BitArray o el arreglo tienen menos de {@code n} bytes.
+     */
+    public void toByteArray(byte[] output, int n) {
+        if (n > output.length || n > (long) bits.length * Long.BYTES) throw new IndexOutOfBoundsException("n: " + n);
+        for (int i = 0; i < n; i++) {
+            output[i] = (byte) (bits[i >>> 3] >>> (WORD_SIZE - Byte.SIZE - 8 * (i & 7)));
+        }
+    }
+
+}
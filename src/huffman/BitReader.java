@@ -0,0 +1,85 @@
+package huffman;
+
+import java.io.IOException;
+
+/**
+ * Lectura secuencial de bits y bytes desde un archivo comprimido.
+ * <p>
+ * Los codificadores y decodificadores sólo dependen de esta interfaz, por lo que pueden leer tanto con
+ * {@link FileBufferedBitReader} (flujo con buffer) como con {@link MappedBitReader} (archivo proyectado en
+ * memoria).
+ * </p>
+ */
+public interface BitReader extends AutoCloseable {
+
+    /**
+     * Verifica si hay más bytes disponibles para leer.
+     *
+     * @return true si hay más bytes disponibles, false de lo contrario.
+     * @throws IOException Si ocurre un error de lectura en el archivo.
+     */
+    boolean hasNext() throws IOException;
+
+    /**
+     * Lee el siguiente byte completo. Se espera que la lectura esté alineada a byte, es decir, que no se hayan
+     * leído bits sueltos del byte actual.
+     *
+     * @return El siguiente byte leído.
+     * @throws IOException Si no quedan bytes o ocurre un error de lectura.
+     */
+    byte nextByte() throws IOException;
+
+    /**
+     * Lee los siguientes 8 bytes como un long, el primero el más significativo.
+     *
+     * @return El siguiente long leído.
+     * @throws IOException Si no quedan bytes suficientes o ocurre un error de lectura.
+     */
+    long nextLong() throws IOException;
+
+    /**
+     * Lee {@code largo} bytes completos seguidos. Como {@link #nextByte()}, se espera que la lectura esté alineada
+     * a byte. Las implementaciones que pueden copiar por tramos deberían sobrescribirlo.
+     *
+     * @param destino Arreglo donde se copian los bytes.
+     * @param desde   Posición del arreglo donde se copia el primero.
+     * @param largo   Cantidad de bytes a leer.
+     * @throws IOException Si no quedan bytes suficientes o ocurre un error de lectura.
+     */
+    default void nextBytes(byte[] destino, int desde, int largo) throws IOException {
+        for (int i = desde; i < desde + largo; i++) destino[i] = nextByte();
+    }
+
+    /**
+     * Lee el siguiente bit.
+     *
+     * @return true si el bit es 1, false si es 0.
+     * @throws IOException Si no quedan bits o ocurre un error de lectura.
+     */
+    boolean nextBit() throws IOException;
+
+    /**
+     * Permite ver los siguientes {@code n} bits sin consumirlos. Si la entrada termina antes, los bits faltantes se
+     * completan con ceros.
+     *
+     * @param n Cantidad de bits, entre 0 y 57.
+     * @return Los bits en los {@code n} bits menos significativos, el primero de ellos el más significativo.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    long peekBits(int n) throws IOException;
+
+    /**
+     * Consume {@code n} bits, normalmente después de haberlos visto con {@link #peekBits(int)}.
+     *
+     * @param n Cantidad de bits a saltar, a lo más 57.
+     */
+    void skipBits(int n);
+
+    /**
+     * Cierra la entrada.
+     *
+     * @throws IOException Si ocurre un error al cerrar.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,65 @@
+package huffman;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escritura secuencial de bits hacia un archivo comprimido.
+ * <p>
+ * Los codificadores sólo dependen de esta interfaz, por lo que pueden escribir tanto con
+ * {@link FileBufferedBitWriter} (flujo con buffer) como con {@link ChannelBitWriter} ({@code ByteBuffer} directo y
+ * {@code FileChannel}).
+ * </p>
+ */
+public interface BitWriter extends Closeable {
+
+    /**
+     * Agrega una secuencia de bits.
+     *
+     * @param bitString Secuencia de bits almacenada en un String ("1110000111").
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(String bitString) throws IOException;
+
+    /**
+     * Agrega un byte.
+     *
+     * @param bitsString El byte que se escribirá.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(byte bitsString) throws IOException;
+
+    /**
+     * Agrega un long, comenzando por su bit más significativo.
+     *
+     * @param bitsString El long que se escribirá.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(long bitsString) throws IOException;
+
+    /**
+     * Agrega los {@code length} bits menos significativos de {@code code}, comenzando por el más significativo de
+     * ellos.
+     *
+     * @param code   Valor cuyos bits menos significativos se escriben.
+     * @param length Cantidad de bits a escribir, entre 0 y 64.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(long code, int length) throws IOException;
+
+    /**
+     * Agrega un arreglo de long.
+     *
+     * @param bitsString El arreglo de long que se escribirá.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(long[] bitsString) throws IOException;
+
+    /**
+     * Agrega la secuencia de bits de un BitArray.
+     *
+     * @param bitsString El BitArray que contiene la secuencia de bits a escribir.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void write(BitArray bitsString) throws IOException;
+}
@@ -0,0 +1,207 @@
+package huffman;
+
+import java.io.IOException;
+
+/**
+ * Código de Huffman canónico.
+ * <p>
+ * Un código canónico queda determinado sólo por el largo del código de cada símbolo: los códigos se asignan en
+ * orden de (largo, símbolo), partiendo del 0 y sumando 1 a cada paso (agregando ceros a la derecha al cambiar de
+ * largo). Por eso basta con guardar los largos en el archivo comprimido, y el decodificador puede reconstruir sus
+ * tablas con arreglos, sin construir un árbol ni usar una cola de prioridad.
+ * </p>
+ */
+public class CanonicalCode {
+
+    /** Largo máximo de un código, los códigos se guardan en un long. */
+    static final int MAX_LARGO = Long.SIZE;
+
+    /** Largo del código de cada símbolo, 0 si el símbolo no aparece. */
+    final byte[] largos;
+
+    /** Código canónico de cada símbolo, alineado a la derecha (los {@code largos[s]} bits menos significativos). */
+    final long[] codigos;
+
+    /** Largo del código más largo. */
+    final int largoMaximo;
+
+    /** cantidad[l] es la cantidad de códigos de largo l. */
+    final int[] cantidad;
+
+    /** primerCodigo[l] es el código canónico del primer símbolo de largo l. */
+    final long[] primerCodigo;
+
+    /** primerIndice[l] es la posición en {@link #simbolos} del primer símbolo de largo l. */
+    final int[] primerIndice;
+
+    /** Símbolos presentes ordenados por (largo, símbolo), es decir, en el orden de sus códigos. */
+    final int[] simbolos;
+
+    /**
+     * Construye el código canónico a partir del largo de código de cada símbolo.
+     *
+     * @param largos Largo del código de cada símbolo (0 si no aparece). El índice es el símbolo.
+     * @throws IllegalArgumentException Si los largos no forman un código prefijo válido.
+     */
+    public CanonicalCode(byte[] largos) {
+        this(largos.clone(), null);
+    }
+
+    /**
+     * Construye el código canónico con los códigos que ya asignó {@link HuffmanTreeBuilder#codes(byte[], long[])},
+     * sin volver a asignarlos. Los arreglos no se copian: pasan a ser del código y no se deben modificar después.
+     *
+     * @param largos  Largo del código de cada símbolo (0 si no aparece). El índice es el símbolo.
+     * @param codigos Código canónico de cada símbolo, del mismo tamaño, o null para asignarlos aquí.
+     * @throws IllegalArgumentException Si los largos no forman un código prefijo válido o los arreglos no tienen el
+     *                                  mismo tamaño.
+     */
+    CanonicalCode(byte[] largos, long[] codigos) {
+        if (codigos != null && codigos.length != largos.length) {
+            throw new IllegalArgumentException("largos y códigos de distinto tamaño");
+        }
+        this.largos = largos;
+        this.codigos = codigos != null ? codigos : new long[largos.length];
+
+        int maximo = 0;
+        int presentes = 0;
+        for (byte largo : largos) {
+            int l = largo & 0xFF;
+            if (l > MAX_LARGO) throw new IllegalArgumentException("largo de código > " + MAX_LARGO + ": " + l);
+            if (l > 0) presentes++;
+            maximo = Math.max(maximo, l);
+        }
+        largoMaximo = maximo;
+
+        cantidad = new int[maximo + 1];
+        for (byte largo : largos) {
+            if (largo != 0) cantidad[largo & 0xFF]++;
+        }
+
+        // Desigualdad de Kraft: los largos deben caber en un árbol binario
+        long disponibles = 1; // códigos libres del nivel actual
+        for (int l = 1; l <= maximo; l++) {
+            disponibles = (disponibles << 1) - cantidad[l];
+            if (disponibles < 0) throw new IllegalArgumentException("los largos no forman un código prefijo");
+            if (disponibles > presentes) disponibles = presentes; // evita overflow, basta con saber que alcanza
+        }
+
+        // Primer código y primer índice de cada largo
+        primerCodigo = new long[maximo + 1];
+        primerIndice = new int[maximo + 1];
+        long codigo = 0;
+        int indice = 0;
+        for (int l = 1; l <= maximo; l++) {
+            codigo = (codigo + cantidad[l - 1]) << 1;
+            primerCodigo[l] = codigo;
+            primerIndice[l] = indice;
+            indice += cantidad[l];
+        }
+
+        // Se asignan los códigos en orden (largo, símbolo)
+        simbolos = new int[presentes];
+        int[] siguiente = primerIndice.clone();
+        for (int s = 0; s < largos.length; s++) {
+            int l = largos[s] & 0xFF;
+            if (l == 0) continue;
+            int posicion = siguiente[l]++;
+            simbolos[posicion] = s;
+            if (codigos == null) this.codigos[s] = primerCodigo[l] + (posicion - primerIndice[l]);
+        }
+    }
+
+    /**
+     * Crea el código canónico a partir de un árbol de Huffman, usando sólo la profundidad de sus hojas.
+     *
+     * @param arbol Árbol de Huffman.
+     * @return El código canónico equivalente (mismos largos) al del árbol.
+     */
+    public static CanonicalCode of(HuffmanTree arbol) {
+        return new CanonicalCode(arbol.codeLengths());
+    }
+
+    /**
+     * @param simbolo Símbolo a codificar.
+     * @return El código canónico del símbolo, en los {@link #length(int)} bits menos significativos.
+     */
+    public long code(int simbolo) {
+        return codigos[simbolo];
+    }
+
+    /**
+     * @param simbolo Símbolo a codificar.
+     * @return El largo en bits del código del símbolo, 0 si el símbolo no tiene código.
+     */
+    public int length(int simbolo) {
+        return largos[simbolo] & 0xFF;
+    }
+
+    /**
+     * @return Una copia de los largos de código de cada símbolo.
+     */
+    public byte[] lengths() {
+        return largos.clone();
+    }
+
+    /**
+     * Decodifica un símbolo leyendo bit a bit. Por cada largo l se compara el código leído con el rango de códigos
+     * de largo l, por lo que no se necesita un árbol.
+     *
+     * @param reader Lector posicionado al inicio de un código.
+     * @return El símbolo decodificado.
+     * @throws IOException Si el archivo termina o los bits no corresponden a ningún código.
+     */
+    public int decodeSymbol(BitReader reader) throws IOException {
+        long codigo = 0;
+        for (int l = 1; l <= largoMaximo; l++) {
+            codigo = (codigo << 1) | (reader.nextBit() ? 1 : 0);
+            long desplazamiento = codigo - primerCodigo[l];
+            if (desplazamiento >= 0 && desplazamiento < cantidad[l]) {
+                return simbolos[primerIndice[l] + (int) desplazamiento];
+            }
+        }
+        throw new IOException("Código Huffman inválido");
+    }
+
+    /**
+     * Obtiene un iterador que recorre el código como si fuera un árbol, sin construir nodos.
+     *
+     * @return Un iterador sobre el código canónico.
+     */
+    public HuffmanIterator getIterator() {
+        return new _CanonicalIterator();
+    }
+
+    /**
+     * Implementación de {@link HuffmanIterator} sobre el código canónico. El "nodo actual" es el par
+     * (código leído, largo leído); es hoja cuando el código leído pertenece al rango de códigos de ese largo.
+     */
+    private class _CanonicalIterator implements HuffmanIterator {
+        long codigo;
+        int largo;
+
+        @Override
+        public void reset() {
+            codigo = 0;
+            largo = 0;
+        }
+
+        @Override
+        public byte getValue() {
+            return (byte) simbolos[primerIndice[largo] + (int) (codigo - primerCodigo[largo])];
+        }
+
+        @Override
+        public void forward(boolean bit) {
+            codigo = (codigo << 1) | (bit ? 1 : 0);
+            largo++;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            if (largo == 0 || largo > largoMaximo) return false;
+            long desplazamiento = codigo - primerCodigo[largo];
+            return desplazamiento >= 0 && desplazamiento < cantidad[largo];
+        }
+    }
+}
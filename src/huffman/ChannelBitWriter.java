@@ -0,0 +1,154 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritura secuencial de bits sobre un {@link ByteBuffer} directo que se vacía a un canal ({@link FileChannel}).
+ * <p>
+ * Los bits se juntan en un acumulador de 64 bits; cuando se llena se copia entero al buffer directo, y el buffer se
+ * entrega al canal sin pasar por arreglos intermedios ni copias en el heap.
+ * </p>
+ */
+public class ChannelBitWriter implements BitWriter {
+
+    /** Tamaño por defecto del buffer directo: 64 KB. */
+    static final int TAMANO_BUFFER = 64 * 1024;
+
+    /** Canal de salida. */
+    final WritableByteChannel canal;
+
+    /** Buffer directo con los bytes pendientes de escribir en el canal. */
+    final ByteBuffer buffer;
+
+    /** Bits pendientes, alineados a la izquierda (el primero es el bit más significativo). */
+    long acumulador;
+
+    /** Cantidad de bits pendientes en el acumulador, entre 0 y 63. */
+    int bitsEnAcumulador;
+
+    /** Bytes ya entregados al canal. */
+    long bytesVaciados;
+
+    /**
+     * Crea (o trunca) el archivo de salida y escribe en él.
+     *
+     * @param outputFileName Nombre del archivo de salida.
+     * @throws IOException Si el archivo no se puede crear.
+     */
+    public ChannelBitWriter(String outputFileName) throws IOException {
+        this(FileChannel.open(Paths.get(outputFileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), TAMANO_BUFFER);
+    }
+
+    /**
+     * Escribe sobre un canal ya abierto, que se cierra al cerrar el escritor.
+     *
+     * @param canal        Canal de salida.
+     * @param tamanoBuffer Tamaño del buffer directo en bytes, al menos 8.
+     */
+    public ChannelBitWriter(WritableByteChannel canal, int tamanoBuffer) {
+        this.canal = canal;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(tamanoBuffer, Long.BYTES));
+    }
+
+    /**
+     * @return Cantidad de bits escritos desde el comienzo, incluidos los que todavía no llegan al canal.
+     */
+    public long position() {
+        return (bytesVaciados + buffer.position()) * Byte.SIZE + bitsEnAcumulador;
+    }
+
+    @Override
+    public void write(long code, int length) throws IOException {
+        if (length == 0) return;
+        int libres = Long.SIZE - bitsEnAcumulador;
+        if (length < libres) {
+            acumulador |= (code << (Long.SIZE - length)) >>> bitsEnAcumulador;
+            bitsEnAcumulador += length;
+        } else { // se completa el acumulador y lo que sobra queda al comienzo del siguiente
+            int resto = length - libres;
+            acumulador |= (code << (Long.SIZE - length)) >>> bitsEnAcumulador;
+            vaciarAcumulador();
+            acumulador = resto == 0 ? 0 : code << (Long.SIZE - resto);
+            bitsEnAcumulador = resto;
+        }
+    }
+
+    /**
+     * Copia el acumulador lleno al buffer, vaciando el buffer al canal si no hay espacio.
+     */
+    private void vaciarAcumulador() throws IOException {
+        if (buffer.remaining() < Long.BYTES) vaciarBuffer();
+        buffer.putLong(acumulador);
+    }
+
+    /**
+     * Entrega al canal todos los bytes del buffer.
+     */
+    private void vaciarBuffer() throws IOException {
+        bytesVaciados += buffer.position();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void write(String bitString) throws IOException {
+        for (int i = 0; i < bitString.length(); i++) {
+            write(bitString.charAt(i) == '1' ? 1 : 0, 1);
+        }
+    }
+
+    @Override
+    public void write(byte bitsString) throws IOException {
+        write(bitsString, Byte.SIZE);
+    }
+
+    @Override
+    public void write(long bitsString) throws IOException {
+        write(bitsString, Long.SIZE);
+    }
+
+    @Override
+    public void write(long[] bitsString) throws IOException {
+        for (long palabra : bitsString) {
+            write(palabra, Long.SIZE);
+        }
+    }
+
+    @Override
+    public void write(BitArray bitsString) throws IOException {
+        for (long i = 0; i < bitsString.length(); i += Long.SIZE) { // de a 64 bits
+            int n = (int) Math.min(Long.SIZE, bitsString.length() - i);
+            write(bitsString.getBits(i, n), n);
+        }
+    }
+
+    /**
+     * Escribe los bits pendientes (completando el último byte con ceros), vacía el buffer y cierra el canal.
+     *
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            int bytes = (bitsEnAcumulador + 7) / 8;
+            if (buffer.remaining() < bytes) vaciarBuffer();
+            for (int i = 0; i < bytes; i++) {
+                buffer.put((byte) (acumulador >>> (Long.SIZE - Byte.SIZE * (i + 1))));
+            }
+            acumulador = 0;
+            bitsEnAcumulador = 0;
+            vaciarBuffer();
+        } finally {
+            canal.close();
+        }
+    }
+}
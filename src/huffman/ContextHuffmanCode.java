@@ -0,0 +1,247 @@
+package huffman;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Código de Huffman de orden 1: cada byte se codifica con la tabla del byte anterior (su contexto).
+ * <p>
+ * {@link HuffmanTree} trata los bytes como independientes, pero en texto y registros el byte anterior dice mucho del
+ * siguiente (después de una 'q' casi siempre viene una 'u'). Con una tabla por contexto cada código se ajusta a lo
+ * que suele seguir a ese byte. Una tabla propia cuesta su mapa y sus largos, así que los contextos que no la
+ * compensan (pocos bytes o una distribución parecida a la del resto) se agrupan en una sola tabla compartida.
+ * El primer byte usa el contexto 0.
+ * </p>
+ * <p>
+ * Formato de las tablas (ver {@link HuffmanFormat#FLAG_CONTEXTO}):
+ * </p>
+ * <pre>
+ * mapa de 256 bits con los contextos con tabla propia | tabla de largos de cada uno, en orden | tabla compartida
+ * </pre>
+ * <p>
+ * Las tablas de largos son las de {@link HuffmanFormat#escribirLargos}; la compartida está vacía si todos los
+ * contextos usados tienen tabla propia. La decodificación sigue siendo con tablas ({@link HuffmanDecodeTable}), una
+ * por contexto con {@link #BITS_TABLA} bits de tabla primaria.
+ * </p>
+ */
+public final class ContextHuffmanCode {
+
+    /** Bits de tabla primaria de cada contexto: 2^9 entradas (2 KB), 512 KB con los 256 contextos. */
+    static final int BITS_TABLA = 9;
+
+    /** Rondas en que se eligen los contextos con tabla propia y se reconstruye la compartida. */
+    private static final int RONDAS = 2;
+
+    /** Código de cada contexto; los contextos agrupados apuntan al compartido, null si el contexto no aparece. */
+    private final CanonicalCode[] codigos;
+
+    /** Si cada contexto tiene su propia tabla. */
+    private final boolean[] propio;
+
+    /** Código compartido por los contextos sin tabla propia, null si no hay ninguno. */
+    private final CanonicalCode compartido;
+
+    /** Tabla de decodificación de cada contexto, se construyen al leer las tablas. */
+    private HuffmanDecodeTable[] tablas;
+
+    private ContextHuffmanCode(CanonicalCode[] codigos, boolean[] propio, CanonicalCode compartido) {
+        this.codigos = codigos;
+        this.propio = propio;
+        this.compartido = compartido;
+    }
+
+    /**
+     * Elige qué contextos llevan tabla propia y construye todos los códigos.
+     * <p>
+     * Un contexto lleva tabla propia si sus bytes codificados con ella, más lo que ocupa la tabla, cuestan menos
+     * que con el código compartido. Como el código compartido depende de qué contextos se agrupan, la elección se
+     * repite {@link #RONDAS} veces, reconstruyendo el compartido con los contextos agrupados en cada ronda.
+     * </p>
+     *
+     * @param frecuencias frecuencias[c][s] es la cantidad de veces que el byte s sigue al byte c.
+     * @param largoMaximo Largo máximo de un código, o 0 para no limitarlo.
+     * @param bitsExtra   Acumulador de los bits perdidos por limitar el largo de los códigos.
+     * @return El código de orden 1.
+     * @throws IllegalArgumentException Si no hay ninguna frecuencia distinta de 0.
+     */
+    static ContextHuffmanCode construir(long[][] frecuencias, int largoMaximo, LongAdder bitsExtra) {
+        CanonicalCode[] propios = new CanonicalCode[256];
+        long[] costoPropio = new long[256];
+        long[] extraPropio = new long[256];
+        long[] global = new long[256];
+        for (int c = 0; c < 256; c++) {
+            if (total(frecuencias[c]) == 0) continue;
+            LongAdder extra = new LongAdder();
+            propios[c] = HuffmanBlock.codigoPara(frecuencias[c], largoMaximo, extra);
+            extraPropio[c] = extra.sum();
+            costoPropio[c] = HuffmanTree.costoEnBits(frecuencias[c], propios[c].lengths()) + costoTabla(propios[c]);
+            for (int s = 0; s < 256; s++) global[s] += frecuencias[c][s];
+        }
+        if (total(global) == 0) throw new IllegalArgumentException("no hay datos que codificar");
+
+        boolean[] propio = new boolean[256];
+        byte[] largosCompartidos = HuffmanBlock.codigoPara(global, largoMaximo, new LongAdder()).lengths();
+        long[] agrupadas = global;
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            agrupadas = new long[256];
+            for (int c = 0; c < 256; c++) {
+                if (propios[c] == null) continue;
+                propio[c] = !cubre(largosCompartidos, frecuencias[c])
+                        || costoPropio[c] < HuffmanTree.costoEnBits(frecuencias[c], largosCompartidos);
+                if (propio[c]) continue;
+                for (int s = 0; s < 256; s++) agrupadas[s] += frecuencias[c][s];
+            }
+            if (total(agrupadas) == 0) break;
+            largosCompartidos = HuffmanBlock.codigoPara(agrupadas, largoMaximo, new LongAdder()).lengths();
+        }
+
+        // El compartido se construye con los contextos agrupados en la última ronda, así que los cubre a todos
+        CanonicalCode compartido = total(agrupadas) == 0 ? null
+                : HuffmanBlock.codigoPara(agrupadas, largoMaximo, bitsExtra);
+        CanonicalCode[] codigos = new CanonicalCode[256];
+        for (int c = 0; c < 256; c++) {
+            if (propios[c] == null) continue;
+            if (propio[c]) bitsExtra.add(extraPropio[c]);
+            codigos[c] = propio[c] ? propios[c] : compartido;
+        }
+        return new ContextHuffmanCode(codigos, propio, compartido);
+    }
+
+    /**
+     * @return Lo que ocupa en el archivo la tabla de largos de un código: el mapa y un byte por símbolo presente.
+     */
+    private static long costoTabla(CanonicalCode codigo) {
+        long out = 256;
+        for (byte largo : codigo.largos) {
+            if (largo != 0) out += Byte.SIZE;
+        }
+        return out;
+    }
+
+    /**
+     * @return Si todos los bytes con frecuencia distinta de 0 tienen código.
+     */
+    private static boolean cubre(byte[] largos, long[] frecuencias) {
+        for (int s = 0; s < 256; s++) {
+            if (frecuencias[s] != 0 && largos[s] == 0) return false;
+        }
+        return true;
+    }
+
+    private static long total(long[] frecuencias) {
+        long out = 0;
+        for (long frecuencia : frecuencias) out += frecuencia;
+        return out;
+    }
+
+    /**
+     * @param anterior Byte anterior (0 para el primero).
+     * @return El código con que se escribe el byte que sigue a {@code anterior}, null si ese contexto no aparece.
+     */
+    CanonicalCode codigo(int anterior) {
+        return codigos[anterior];
+    }
+
+    /**
+     * @return Cantidad de contextos con tabla propia.
+     */
+    int contextosPropios() {
+        int out = 0;
+        for (boolean p : propio) {
+            if (p) out++;
+        }
+        return out;
+    }
+
+    /**
+     * Escribe el mapa de contextos y las tablas de largos.
+     *
+     * @param writer Escritor de bits.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    void escribir(BitWriter writer) throws IOException {
+        for (int c = 0; c < 256; c++) {
+            writer.write(propio[c] ? 1 : 0, 1);
+        }
+        for (int c = 0; c < 256; c++) {
+            if (propio[c]) HuffmanFormat.escribirLargos(writer, codigos[c].lengths());
+        }
+        HuffmanFormat.escribirLargos(writer, compartido != null ? compartido.lengths() : new byte[256]);
+    }
+
+    /**
+     * Lee las tablas escritas con {@link #escribir(BitWriter)} y construye la tabla de decodificación de cada
+     * contexto. Los contextos agrupados comparten una sola tabla.
+     *
+     * @param reader Lector posicionado al inicio del mapa de contextos.
+     * @return El código de orden 1, listo para {@link #decodeSymbol(BitReader, int)}.
+     * @throws IOException Si el archivo termina antes o alguna tabla de largos es inválida.
+     */
+    static ContextHuffmanCode leer(BitReader reader) throws IOException {
+        byte[] mapa = new byte[256 / Byte.SIZE];
+        for (int i = 0; i < mapa.length; i++) mapa[i] = reader.nextByte();
+        boolean[] propio = new boolean[256];
+        byte[][] largos = new byte[256][];
+        for (int c = 0; c < 256; c++) {
+            propio[c] = (mapa[c / Byte.SIZE] & (0x80 >>> (c % Byte.SIZE))) != 0;
+            if (propio[c]) largos[c] = HuffmanFormat.leerLargos(reader);
+        }
+        byte[] largosCompartidos = HuffmanFormat.leerLargos(reader);
+        try {
+            CanonicalCode compartido = null;
+            HuffmanDecodeTable tablaCompartida = null;
+            for (byte largo : largosCompartidos) {
+                if (largo != 0) {
+                    compartido = new CanonicalCode(largosCompartidos);
+                    tablaCompartida = new HuffmanDecodeTable(compartido, BITS_TABLA);
+                    break;
+                }
+            }
+            CanonicalCode[] codigos = new CanonicalCode[256];
+            HuffmanDecodeTable[] tablas = new HuffmanDecodeTable[256];
+            for (int c = 0; c < 256; c++) {
+                if (propio[c]) {
+                    codigos[c] = new CanonicalCode(largos[c]);
+                    tablas[c] = new HuffmanDecodeTable(codigos[c], BITS_TABLA);
+                } else {
+                    codigos[c] = compartido;
+                    tablas[c] = tablaCompartida;
+                }
+            }
+            ContextHuffmanCode out = new ContextHuffmanCode(codigos, propio, compartido);
+            out.tablas = tablas;
+            return out;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Tabla de largos inválida", e);
+        }
+    }
+
+    /**
+     * @return El largo del código más corto de todas las tablas, para acotar cuántos bytes puede haber en los bits.
+     */
+    int largoMinimo() {
+        int out = CanonicalCode.MAX_LARGO;
+        for (CanonicalCode codigo : codigos) {
+            if (codigo == null) continue;
+            for (byte largo : codigo.largos) {
+                if (largo != 0) out = Math.min(out, largo);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodifica el siguiente byte con la tabla de su contexto. Sólo sirve en un código obtenido con
+     * {@link #leer(BitReader)}.
+     *
+     * @param reader   Lector posicionado al inicio de un código.
+     * @param anterior Byte decodificado anterior (0 para el primero).
+     * @return El byte decodificado.
+     * @throws IOException Si ocurre un error de lectura, el contexto no tiene tabla o el código es inválido.
+     */
+    public int decodeSymbol(BitReader reader, int anterior) throws IOException {
+        HuffmanDecodeTable tabla = tablas[anterior];
+        if (tabla == null) throw new IOException("Contexto sin tabla: " + anterior);
+        return tabla.decodeSymbol(reader);
+    }
+}
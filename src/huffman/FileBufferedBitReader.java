@@ -1,14 +1,17 @@
+package huffman;
+
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 
 /**
  * permite leer desde un archivo byte a byte de manera secuencial. Internamente tiene un buffer.
  */
-public class FileBufferedBitReader implements AutoCloseable {
-    /** Flujo de entrada para el archivo */
-    FileInputStream input;
+public class FileBufferedBitReader implements BitReader {
+    /** Flujo de entrada para el archivo (o cualquier otro flujo de bytes) */
+    InputStream input;
 
     /** Buffer para almacenar los bytes leídos del archivo */
     byte[] buffer;
@@ -37,13 +40,14 @@ public class FileBufferedBitReader implements AutoCloseable {
 
     /**
      * Constructor que inicializa un FileBufferedBitReader con un flujo de entrada y un tamaño de buffer específico.
+     * El flujo no tiene que ser un archivo: puede ser, por ejemplo, un {@link java.io.ByteArrayInputStream}.
      *
-     * @param input       Flujo de entrada para el archivo.
+     * @param input       Flujo de entrada.
      * @param bufferLength Tamaño del buffer interno.
      */
-    public FileBufferedBitReader(FileInputStream input, int bufferLength) {
+    public FileBufferedBitReader(InputStream input, int bufferLength) {
         this.input = input;
-        buffer = new byte[bufferLength];
+        buffer = new byte[Math.max(bufferLength, Long.BYTES)]; // peekBits necesita al menos 8 bytes
         bufferSize = 0;
         lecturas = 0;
     }
@@ -93,10 +97,10 @@ public class FileBufferedBitReader implements AutoCloseable {
         long dataL;
         for (int i = 1; i < Long.BYTES; i++) {
             data = nextByte();
-            dataL = (long) data;
+            dataL = (long) data & 0xFF;
             out |= dataL << (Long.SIZE - (i * 8));
         }
-        out |= (long) nextByte();
+        out |= (long) nextByte() & 0xFF;
         return out;
     }
 
@@ -108,6 +112,7 @@ public class FileBufferedBitReader implements AutoCloseable {
      * @throws IOException Si ocurre un error de lectura en el archivo.
      */
     public boolean nextBit() throws IOException {
+        if (!hasNext()) throw new IOException("No more bits to read");
         byte mask= (byte) (1<<7-bitPos++);
         boolean output = ( mask & buffer[lecturas] ) != 0;
         if (bitPos == 8) {
@@ -117,6 +122,54 @@ public class FileBufferedBitReader implements AutoCloseable {
         return output;
 
     }
+    /**
+     * Permite ver los siguientes {@code n} bits sin consumirlos, a partir del bit que leería {@link #nextBit()}.
+     * Si el archivo termina antes, los bits faltantes se completan con ceros.
+     *
+     * @param n Cantidad de bits, entre 0 y 57.
+     * @return Los bits en los {@code n} bits menos significativos, el primero de ellos el más significativo.
+     * @throws IOException Si ocurre un error de lectura en el archivo.
+     */
+    public long peekBits(int n) throws IOException {
+        if (n == 0) return 0;
+        asegurarBytes(Long.BYTES);
+        long ventana = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int indice = lecturas + i;
+            ventana = (ventana << 8) | (indice < bufferSize ? buffer[indice] & 0xFF : 0);
+        }
+        return (ventana << bitPos) >>> (Long.SIZE - n);
+    }
+
+    /**
+     * Consume {@code n} bits, normalmente después de haberlos visto con {@link #peekBits(int)}.
+     *
+     * @param n Cantidad de bits a saltar, a lo más 57.
+     */
+    public void skipBits(int n) {
+        bitPos += n;
+        lecturas += bitPos >>> 3;
+        bitPos &= 7;
+    }
+
+    /**
+     * Mueve los bytes no leídos al comienzo del buffer y lo rellena, para que queden al menos {@code n} bytes
+     * disponibles (menos si el archivo termina antes).
+     */
+    private void asegurarBytes(int n) throws IOException {
+        int restantes = bufferSize - lecturas;
+        if (restantes >= n) return;
+        if (restantes > 0) System.arraycopy(buffer, lecturas, buffer, 0, restantes);
+        else restantes = 0;
+        lecturas = 0;
+        bufferSize = restantes;
+        while (bufferSize < n) {
+            int leidos = input.read(buffer, bufferSize, buffer.length - bufferSize);
+            if (leidos == -1) break;
+            bufferSize += leidos;
+        }
+    }
+
     /**
      * Cierra el flujo de entrada del archivo.
      *
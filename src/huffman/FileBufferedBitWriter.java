@@ -0,0 +1,171 @@
+package huffman;
+
+import java.io.*;
+
+
+/**
+ * Escritura secuencial de un bitString a un archivo. internamente utiliza un buffer.
+ * <p>
+ * Los bits se juntan primero en un acumulador de 64 bits; cuando se completa, la palabra entera se copia al buffer
+ * (un {@link BitArray}), por lo que escribir un código cuesta unas pocas operaciones y no un ciclo de escrituras
+ * bit a bit.
+ * </p>
+ */
+public class FileBufferedBitWriter implements BitWriter {
+    /** Buffer para almacenar los bits a escribir en el archivo */
+    BitArray buffer;
+    /**  Tamaño del buffer, múltiplo de 64 bits*/
+    int bufferSize;
+    /** Cantidad de bits actualmente en el buffer, siempre múltiplo de 64 */
+    int bitCount;
+    /** Flujo de salida para escribir en el archivo */
+    BufferedOutputStream output;
+    /** Bits pendientes, alineados a la izquierda (el primero es el bit más significativo) */
+    long acumulador;
+    /** Cantidad de bits pendientes en el acumulador, entre 0 y 63 */
+    int bitsEnAcumulador;
+    /** Arreglo reutilizado para entregar el buffer al flujo de salida */
+    byte[] bytes;
+
+    /**
+     * Constructor que inicializa un FileBufferedBitWriter a partir del nombre del archivo de salida.
+     *
+     * @param outputFileName Nombre del archivo de salida.
+     * @throws FileNotFoundException Si el archivo de salida no es encontrado.
+     */
+    public FileBufferedBitWriter(String outputFileName) throws FileNotFoundException {
+        this(new BufferedOutputStream(new FileOutputStream(outputFileName)), 8 * 4 * 1024);//4KB
+    }
+
+    /**
+     * Constructor que inicializa un FileBufferedBitWriter con un flujo de salida y un tamaño de buffer específico.
+     *
+     * @param output         Flujo de salida para el archivo.
+     * @param bufferBitLength Tamaño del buffer interno en bits, se redondea hacia arriba a un múltiplo de 64.
+     */
+    public FileBufferedBitWriter(BufferedOutputStream output, int bufferBitLength) {
+        this.output = output;
+        bufferSize = Math.max(Long.SIZE, (bufferBitLength + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        buffer = new BitArray(bufferSize);
+        bytes = new byte[bufferSize / Byte.SIZE];
+        bitCount = 0;
+    }
+
+    /**
+     * Agrega al final del archivo una secuencia de bits.
+     *
+     * @param bitString Secuencia de bits almacenada en un String ("1110000111").
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(String bitString) throws IOException {
+        // se juntan hasta 64 caracteres en un long y se escriben de una vez
+        for (int i = 0; i < bitString.length(); i += Long.SIZE) {
+            int n = Math.min(Long.SIZE, bitString.length() - i);
+            long bits = 0;
+            for (int j = 0; j < n; j++) {
+                bits = (bits << 1) | (bitString.charAt(i + j) == '1' ? 1 : 0);
+            }
+            write(bits, n);
+        }
+    }
+
+    /**
+     * Agrega al final del archivo un byte.
+     *
+     * @param bitsString El byte que se escribirá en el archivo.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(byte bitsString)throws IOException{
+        write(bitsString, Byte.SIZE);
+    }
+
+    /**
+     * Agrega al final del archivo un long.
+     *
+     * @param bitsString El long que se escribirá en el archivo.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(long bitsString) throws IOException {
+        write(bitsString, Long.SIZE);
+    }
+    /**
+     * Agrega al final del archivo los {@code length} bits menos significativos de {@code code}, comenzando por el
+     * más significativo de ellos. Permite escribir códigos de Huffman guardados como números.
+     *
+     * @param code   Valor cuyos bits menos significativos se escriben.
+     * @param length Cantidad de bits a escribir, entre 0 y 64.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(long code, int length) throws IOException {
+        if (length == 0) return;
+        int libres = Long.SIZE - bitsEnAcumulador;
+        acumulador |= (code << (Long.SIZE - length)) >>> bitsEnAcumulador;
+        if (length < libres) {
+            bitsEnAcumulador += length;
+        } else { // el acumulador se completa: la palabra pasa al buffer y lo que sobra queda en el acumulador
+            int resto = length - libres;
+            if (bitCount >= bufferSize) flushBuffer();
+            buffer.setBits(bitCount, acumulador, Long.SIZE);
+            bitCount += Long.SIZE;
+            acumulador = resto == 0 ? 0 : code << (Long.SIZE - resto);
+            bitsEnAcumulador = resto;
+        }
+    }
+
+    /**
+     * Agrega al final del archivo un arreglo de long.
+     *
+     * @param bitsString El arreglo de long que se escribirá en el archivo.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(long[] bitsString) throws IOException {
+        for (long palabra : bitsString) {
+            write(palabra, Long.SIZE);
+        }
+    }
+
+    /**
+     * Agrega al final del archivo una secuencia de bits representada por un BitArray.
+     *
+     * @param bitsString El BitArray que contiene la secuencia de bits a escribir en el archivo.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    public void write(BitArray bitsString) throws IOException {
+        for (long i = 0; i < bitsString.length(); i += Long.SIZE) { // de a 64 bits
+            int n = (int) Math.min(Long.SIZE, bitsString.length() - i);
+            write(bitsString.getBits(i, n), n);
+        }
+    }
+
+    /**
+     * Vacía el buffer escribiendo su contenido en el archivo.
+     *
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    private void flushBuffer() throws IOException {
+        if (bitCount > 0) {
+            int n = (bitCount + 7) / 8;
+            buffer.toByteArray(bytes, n); // sin crear un arreglo nuevo en cada vaciado
+            output.write(bytes, 0, n);
+            bitCount = 0;
+        }
+    }
+
+    /**
+     * Cierra el flujo de salida del archivo.
+     *
+     * @throws IOException Si ocurre un error al cerrar el flujo de salida del archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        if (bitsEnAcumulador > 0) { // los bits pendientes se completan con ceros hasta el siguiente byte
+            if (bitCount >= bufferSize) flushBuffer();
+            buffer.setBits(bitCount, acumulador, Long.SIZE); // la palabra completa, para no dejar bits antiguos
+            bitCount += bitsEnAcumulador;
+            acumulador = 0;
+            bitsEnAcumulador = 0;
+        }
+        flushBuffer();
+        output.close();
+    }
+}
@@ -0,0 +1,107 @@
+package huffman;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Programa principal que permite usar el compresor de Huffman desde la línea de comando.
+ * Con este programa se puede comprimir un archivo cualquiera y descomprimirlo, o guardar muchos archivos en un
+ * solo archivo contenedor ({@link HuffmanArchive}).
+ */
+public class Huffman {
+
+    public static void help() {
+        System.out.println("\nCompresor de archivos de huffman");
+        System.out.println("Curso estructuras de datos Universidad del Bío-Bío");
+        System.out.println("========================================================");
+        System.out.println("uso:");
+        System.out.println("   java -jar huffman.jar [opcion] [archivo.huff] [archivo sin comprimir] ");
+        System.out.println("   java -jar huffman.jar -a [archivo.hua] [archivos o directorios...]");
+        System.out.println("   java -jar huffman.jar -x [archivo.hua] [directorio] [entradas...]");
+        System.out.println("   java -jar huffman.jar -l [archivo.hua]");
+        System.out.println("   java -jar huffman.jar -p [archivo.hua] [entrada]");
+        System.out.println("   java -jar huffman.jar -r [archivo.huff] [desde] [largo]");
+        System.out.println("   java -jar huffman.jar -v [archivo.huff o archivo.hua]");
+        System.out.println();
+        System.out.println("Opciones:");
+        System.out.println("        -c: compresion. El [archivo.huff] sera el resultado de comprimir mediante huffman el [archivo sin comprimir]");
+        System.out.println("        -d: descompresion. El [archivo sin comprimir] es el resultado de descomprimir el [archivo.huff]");
+        System.out.println("        -a: crea un archivo contenedor con todos los archivos (cada uno comprimido por separado, en paralelo)");
+        System.out.println("        -x: extrae en paralelo las entradas indicadas (o todas) del contenedor en el [directorio]");
+        System.out.println("        -l: lista las entradas del contenedor");
+        System.out.println("        -p: escribe una entrada del contenedor en la salida estandar, sin leer las demas");
+        System.out.println("        -r: escribe en la salida estandar [largo] bytes descomprimidos a partir del byte [desde]");
+        System.out.println("        -v: verifica el archivo (el CRC de cada bloque, en paralelo) sin descomprimirlo a disco");
+        System.out.println("\nNota: Tíldes omitidos intencionalmente");
+
+
+    }
+
+    // [archivo sin comprimir] y [archivo.huff] corresponden a las rutas de los archivos
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            help(); // explica que el programa espera este formato: java -jar huffman.jar [opcion] [archivo.huff] [archivo sin comprimir]
+            return;
+        }
+        try {
+            switch (args[0].toLowerCase()) {
+                case "-c" -> {
+                    if (args.length < 3) {
+                        help();
+                        return;
+                    }
+                    // si la opción es -c, el programa debe comprimir el archivo [archivo sin comprimir], entregándolo como [archivo.huff]
+                    HuffmanEncoder huffmanEncoder = new HuffmanEncoder(args[2], args[1]);
+                    huffmanEncoder.encode();
+                }
+                case "-d" -> {
+                    if (args.length < 3) {
+                        help();
+                        return;
+                    }
+                    // si la opcion es -d, el programa debe descomprimir el [archivo.huff] entregando [archivo sin comprimir]
+                    HuffmanDecoder huffmanDecoder = new HuffmanDecoder(args[1], args[2]);
+                    huffmanDecoder.decode();
+                }
+                case "-a" -> HuffmanArchive.crear(args[1], Arrays.asList(args).subList(2, args.length),
+                        ForkJoinPool.commonPool());
+                case "-x" -> HuffmanArchive.abrir(args[1]).extraerTodo(args.length > 2 ? args[2] : ".",
+                        Arrays.asList(args).subList(Math.min(3, args.length), args.length), ForkJoinPool.commonPool());
+                case "-l" -> {
+                    for (HuffmanArchive.Entrada entrada : HuffmanArchive.abrir(args[1]).getEntradas()) {
+                        System.out.printf("%12d %12d  %s%n", entrada.getLargoOriginal(), entrada.getLargoComprimido(),
+                                entrada.getNombre());
+                    }
+                }
+                case "-p" -> {
+                    if (args.length < 3) {
+                        help();
+                        return;
+                    }
+                    OutputStream salida = new BufferedOutputStream(System.out);
+                    HuffmanArchive.abrir(args[1]).extraer(args[2], salida);
+                    salida.flush();
+                }
+                case "-r" -> {
+                    if (args.length < 4) {
+                        help();
+                        return;
+                    }
+                    byte[] rango = new HuffmanDecoder(args[1], null).decodeRange(Long.parseLong(args[2]),
+                            Integer.parseInt(args[3]));
+                    System.out.write(rango);
+                    System.out.flush();
+                }
+                case "-v" -> new HuffmanDecoder(args[1], null).verify();
+                default -> help();
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
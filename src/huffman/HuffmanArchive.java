@@ -0,0 +1,327 @@
+package huffman;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Archivo contenedor con muchos archivos comprimidos con Huffman, cada uno de forma independiente.
+ * <p>
+ * Formato ({@link HuffmanFormat#VERSION_ARCHIVO}):
+ * </p>
+ * <pre>
+ * cabecera | entradas... | directorio | long posición_directorio
+ * </pre>
+ * <p>
+ * Cada entrada es un flujo completo de {@link HuffmanOutputStream}, así que se puede descomprimir sin conocer las
+ * demás. El directorio, al final, tiene un int con la cantidad de entradas y por cada una su nombre (UTF), su
+ * posición, su largo comprimido y su largo original (long). Con el directorio se puede extraer una sola entrada sin
+ * recorrer el resto del archivo, y extraer varias en paralelo.
+ * </p>
+ */
+public class HuffmanArchive {
+
+    /** Una entrada del directorio. */
+    public static final class Entrada {
+        final String nombre;
+        final long posicion;
+        final long largoComprimido;
+        final long largoOriginal;
+
+        Entrada(String nombre, long posicion, long largoComprimido, long largoOriginal) {
+            this.nombre = nombre;
+            this.posicion = posicion;
+            this.largoComprimido = largoComprimido;
+            this.largoOriginal = largoOriginal;
+        }
+
+        /** @return El nombre de la entrada, con '/' como separador. */
+        public String getNombre() {
+            return nombre;
+        }
+
+        /** @return Los bytes que ocupa comprimida. */
+        public long getLargoComprimido() {
+            return largoComprimido;
+        }
+
+        /** @return Los bytes del archivo original. */
+        public long getLargoOriginal() {
+            return largoOriginal;
+        }
+    }
+
+    /** Una entrada comprimida por {@link #comprimirEntrada(Path)}, con los bytes que se leyeron del original. */
+    private static final class Comprimida {
+        final byte[] bytes;
+        final long largoOriginal;
+
+        Comprimida(byte[] bytes, long largoOriginal) {
+            this.bytes = bytes;
+            this.largoOriginal = largoOriginal;
+        }
+    }
+
+    /** Ruta del archivo contenedor. */
+    private final String fileName;
+
+    /** Entradas del directorio, en el orden en que están en el archivo. */
+    private final List<Entrada> entradas;
+
+    /** Entradas por nombre. */
+    private final Map<String, Entrada> porNombre = new HashMap<>();
+
+    private HuffmanArchive(String fileName, List<Entrada> entradas) {
+        this.fileName = fileName;
+        this.entradas = Collections.unmodifiableList(entradas);
+        for (Entrada entrada : entradas) porNombre.put(entrada.nombre, entrada);
+    }
+
+    /**
+     * Crea un archivo contenedor. Las entradas se comprimen en paralelo en el pool y se escriben en el orden
+     * recibido; como en {@link HuffmanEncoder#encodeParalelo(int, ForkJoinPool)}, a lo más el doble del paralelismo
+     * del pool se mantienen comprimidas en memoria esperando su turno.
+     *
+     * @param fileName Ruta del archivo contenedor a crear.
+     * @param archivos Archivos o directorios (se agregan todos los archivos que contienen) a guardar.
+     * @param pool     Pool de hilos donde se comprimen las entradas.
+     * @return El archivo creado, con su directorio.
+     * @throws IOException Si no se puede leer alguna entrada o escribir el contenedor.
+     */
+    public static HuffmanArchive crear(String fileName, List<String> archivos, ForkJoinPool pool) throws IOException {
+        List<Path> rutas = new ArrayList<>();
+        for (String archivo : archivos) {
+            Path ruta = Paths.get(archivo);
+            if (Files.isDirectory(ruta)) {
+                try (Stream<Path> contenido = Files.walk(ruta)) {
+                    contenido.filter(Files::isRegularFile).sorted().forEach(rutas::add);
+                }
+            } else {
+                rutas.add(ruta);
+            }
+        }
+        Set<String> nombres = new HashSet<>();
+        for (Path ruta : rutas) {
+            if (!nombres.add(nombreDeEntrada(ruta))) throw new IOException("Entrada repetida: " + ruta);
+        }
+
+        List<Entrada> entradas = new ArrayList<>(rutas.size());
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName),
+                64 * 1024))) {
+            HuffmanFormat.escribirCabecera(salida, HuffmanFormat.VERSION_ARCHIVO, 0);
+            long posicion = 5;
+
+            ArrayDeque<ForkJoinTask<Comprimida>> enVuelo = new ArrayDeque<>();
+            int maximoEnVuelo = 2 * pool.getParallelism();
+            int siguiente = 0;
+            for (int escrita = 0; escrita < rutas.size(); escrita++) {
+                while (siguiente < rutas.size() && enVuelo.size() < maximoEnVuelo) {
+                    Path ruta = rutas.get(siguiente++);
+                    enVuelo.add(pool.submit(() -> comprimirEntrada(ruta)));
+                }
+                Comprimida comprimida = unir(enVuelo.poll());
+                Path ruta = rutas.get(escrita);
+                salida.write(comprimida.bytes);
+                entradas.add(new Entrada(nombreDeEntrada(ruta), posicion, comprimida.bytes.length,
+                        comprimida.largoOriginal));
+                posicion += comprimida.bytes.length;
+            }
+
+            salida.writeInt(entradas.size());
+            for (Entrada entrada : entradas) {
+                salida.writeUTF(entrada.nombre);
+                salida.writeLong(entrada.posicion);
+                salida.writeLong(entrada.largoComprimido);
+                salida.writeLong(entrada.largoOriginal);
+            }
+            salida.writeLong(posicion);
+        }
+        System.out.println("Archivo creado con " + entradas.size() + " entradas...");
+        return new HuffmanArchive(fileName, entradas);
+    }
+
+    /**
+     * Abre un archivo contenedor leyendo sólo la cabecera y el directorio.
+     *
+     * @param fileName Ruta del archivo contenedor.
+     * @return El archivo, con su directorio.
+     * @throws IOException Si el archivo no es un contenedor válido.
+     */
+    public static HuffmanArchive abrir(String fileName) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long largo = canal.size();
+            if (largo < 5 + Integer.BYTES + Long.BYTES) throw new EOFException("Archivo truncado");
+            ByteBuffer cabecera = ByteBuffer.allocate(5);
+            HuffmanFormat.leerEn(canal, cabecera, 0);
+            int[] versionYFlags = HuffmanFormat.leerCabecera(new DataInputStream(
+                    new ByteArrayInputStream(cabecera.array())));
+            if (versionYFlags[0] != HuffmanFormat.VERSION_ARCHIVO) throw new IOException("No es un archivo contenedor");
+
+            ByteBuffer fin = ByteBuffer.allocate(Long.BYTES);
+            HuffmanFormat.leerEn(canal, fin, largo - Long.BYTES);
+            long posicionDirectorio = fin.getLong(0);
+            if (posicionDirectorio < 5 || posicionDirectorio > largo - Long.BYTES - Integer.BYTES) {
+                throw new IOException("Posición de directorio inválida: " + posicionDirectorio);
+            }
+            ByteBuffer directorio = ByteBuffer.allocate((int) (largo - Long.BYTES - posicionDirectorio));
+            HuffmanFormat.leerEn(canal, directorio, posicionDirectorio);
+
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(directorio.array()));
+            int cantidad = input.readInt();
+            if (cantidad < 0) throw new IOException("Directorio inválido");
+            List<Entrada> entradas = new ArrayList<>();
+            for (int i = 0; i < cantidad; i++) {
+                Entrada entrada = new Entrada(input.readUTF(), input.readLong(), input.readLong(), input.readLong());
+                if (entrada.posicion < 5 || entrada.largoComprimido < 0
+                        || entrada.posicion + entrada.largoComprimido > posicionDirectorio) {
+                    throw new IOException("Directorio inválido: " + entrada.nombre);
+                }
+                entradas.add(entrada);
+            }
+            return new HuffmanArchive(fileName, entradas);
+        }
+    }
+
+    /**
+     * @return Las entradas del directorio, en el orden en que están guardadas.
+     */
+    public List<Entrada> getEntradas() {
+        return entradas;
+    }
+
+    /**
+     * Descomprime una sola entrada, leyendo sólo su parte del archivo.
+     *
+     * @param nombre Nombre de la entrada.
+     * @param output Destino de los datos descomprimidos (no se cierra).
+     * @throws IOException Si la entrada no existe o está dañada.
+     */
+    public void extraer(String nombre, OutputStream output) throws IOException {
+        Entrada entrada = porNombre.get(nombre);
+        if (entrada == null) throw new FileNotFoundException("No existe la entrada: " + nombre);
+        extraer(entrada, output);
+    }
+
+    private void extraer(Entrada entrada, OutputStream output) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            canal.position(entrada.posicion); // cada extracción tiene su propio canal, así que puede ir en paralelo
+            InputStream input = new HuffmanInputStream(new BufferedInputStream(Channels.newInputStream(canal),
+                    (int) Math.min(64 * 1024, Math.max(entrada.largoComprimido, 1))),
+                    HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO); // el tamaño con que comprimirEntrada escribe los bloques
+            long copiados = input.transferTo(output);
+            if (copiados != entrada.largoOriginal) throw new IOException("Entrada dañada: " + entrada.nombre);
+        }
+    }
+
+    /**
+     * Extrae entradas en paralelo a un directorio, recreando sus subdirectorios.
+     *
+     * @param directorio Directorio de destino.
+     * @param nombres    Entradas a extraer; si está vacío se extraen todas.
+     * @param pool       Pool de hilos donde se descomprimen las entradas.
+     * @throws IOException Si alguna entrada no existe, está dañada o no se puede escribir.
+     */
+    public void extraerTodo(String directorio, Collection<String> nombres, ForkJoinPool pool) throws IOException {
+        List<Entrada> elegidas = new ArrayList<>();
+        if (nombres.isEmpty()) {
+            elegidas.addAll(entradas);
+        } else {
+            for (String nombre : nombres) {
+                Entrada entrada = porNombre.get(nombre);
+                if (entrada == null) throw new FileNotFoundException("No existe la entrada: " + nombre);
+                elegidas.add(entrada);
+            }
+        }
+        Path base = Paths.get(directorio).toAbsolutePath().normalize();
+        List<ForkJoinTask<?>> tareas = new ArrayList<>(elegidas.size());
+        for (Entrada entrada : elegidas) {
+            Path destino = base.resolve(entrada.nombre).normalize();
+            if (!destino.startsWith(base)) throw new IOException("Entrada fuera del directorio: " + entrada.nombre);
+            tareas.add(pool.submit(() -> {
+                try {
+                    Files.createDirectories(destino.getParent());
+                    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(destino.toFile()))) {
+                        extraer(entrada, output);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        HuffmanDecoder.unirTodas(tareas);
+        System.out.println("Extracción exitosa de " + elegidas.size() + " entradas...");
+    }
+
+    /**
+     * Descomprime todas las entradas en paralelo sin escribirlas, comprobando el CRC32C de cada bloque y el largo de
+     * cada entrada.
+     *
+     * @param pool Pool de hilos donde se revisan las entradas.
+     * @throws IOException Si alguna entrada está dañada.
+     */
+    public void verificar(ForkJoinPool pool) throws IOException {
+        List<ForkJoinTask<?>> tareas = new ArrayList<>(entradas.size());
+        for (Entrada entrada : entradas) {
+            tareas.add(pool.submit(() -> {
+                try {
+                    extraer(entrada, OutputStream.nullOutputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(new IOException(entrada.nombre + ": " + e.getMessage(), e));
+                }
+            }));
+        }
+        HuffmanDecoder.unirTodas(tareas);
+    }
+
+    /**
+     * Comprime un archivo completo como flujo de {@link HuffmanOutputStream}. Se ejecuta en un hilo del pool.
+     * El largo original es lo que efectivamente se leyó, que puede diferir de {@link Files#size} si el archivo
+     * cambia mientras se comprime.
+     */
+    private static Comprimida comprimirEntrada(Path ruta) {
+        try (InputStream input = Files.newInputStream(ruta)) {
+            long tamano = Files.size(ruta);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(tamano / 2 + 64, 1 << 20));
+            int bloque = (int) Math.max(1, Math.min(tamano, HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO));
+            long leidos;
+            try (HuffmanOutputStream output = new HuffmanOutputStream(bytes, bloque)) {
+                leidos = input.transferTo(output);
+            }
+            return new Comprimida(bytes.toByteArray(), leidos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Comprimida unir(ForkJoinTask<Comprimida> tarea) throws IOException {
+        try {
+            return tarea.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Nombre con que se guarda una ruta: relativa, sin partes "." ni "..", y con '/' como separador.
+     */
+    private static String nombreDeEntrada(Path ruta) {
+        Path normalizada = ruta.normalize();
+        if (normalizada.getRoot() != null) normalizada = normalizada.getRoot().relativize(normalizada);
+        StringBuilder nombre = new StringBuilder();
+        for (Path parte : normalizada) {
+            if (parte.toString().equals("..")) continue;
+            if (nombre.length() > 0) nombre.append('/');
+            nombre.append(parte);
+        }
+        return nombre.toString();
+    }
+}
@@ -0,0 +1,501 @@
+package huffman;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Compresión de un bloque independiente, con su propia tabla de códigos.
+ * <p>
+ * Formato de un bloque comprimido (termina alineado a byte):
+ * </p>
+ * <pre>
+ * int largo_original | [int crc32c] | [byte modo] | tabla de largos | [tabla de rachas] | bits empaquetados
+ * int largo_original | [int crc32c] | byte modo | bytes originales (MODO_CRUDO) o byte repetido (MODO_CONSTANTE)
+ * </pre>
+ * <p>
+ * El CRC32C de los datos originales sólo está en los archivos con {@link HuffmanFormat#FLAG_CRC}; el modo, en los
+ * archivos con {@link HuffmanFormat#FLAG_RACHAS} o {@link HuffmanFormat#FLAG_CRUDO}, y cada uno de ellos habilita sus
+ * propios modos.
+ * </p>
+ * <p>
+ * Con {@link HuffmanFormat#FLAG_CRUDO}, antes de construir el código se estima con la entropía del histograma cuánto
+ * ocuparía el bloque codificado. Si la ganancia no llega a {@link #GANANCIA_MINIMA} (datos ya comprimidos, como
+ * imágenes o audio), el bloque se guarda sin codificar en {@link #MODO_CRUDO}; si aparece un solo byte, basta con
+ * guardarlo una vez en {@link #MODO_CONSTANTE}. En ambos casos no se construye ningún árbol, y al descomprimir los
+ * bytes se copian o se rellenan de una vez.
+ * </p>
+ * <p>
+ * En {@link #MODO_RACHAS} el bloque se codifica con un alfabeto de 256 + {@link #SIMBOLOS_RACHA} símbolos: los
+ * bytes y, aparte, las rachas. Cuando un byte se repite {@link #MIN_RACHA} o más veces seguidas, las repeticiones
+ * se escriben como un solo símbolo de racha {@code 256 + j} seguido de j bits: la racha repite el byte anterior
+ * {@code 2^j + bits} veces. Así una racha larga cuesta unos pocos bits en vez de al menos uno por byte. La tabla de
+ * rachas es un int con un bit por símbolo de racha presente (el bit j para el símbolo {@code 256 + j}) y un byte con
+ * el largo de cada uno. Los bloques en este modo no se dividen en subflujos.
+ * </p>
+ * <p>
+ * Cada bloque se puede comprimir y descomprimir sin conocer los demás, lo que permite procesar varios bloques en
+ * paralelo (ver {@link HuffmanEncoder#encodeParalelo(int)}) y adaptar la tabla a los cambios de estadística a lo
+ * largo de la entrada.
+ * </p>
+ */
+public final class HuffmanBlock {
+
+    /** Tamaño de bloque por defecto: 1 MB. */
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = 1 << 20;
+
+    /** Modo de un bloque: cada byte con su código. */
+    static final int MODO_BYTES = 0;
+
+    /** Modo de un bloque: bytes y rachas de un byte repetido, cada una con su propio símbolo. */
+    static final int MODO_RACHAS = 1;
+
+    /** Modo de un bloque: los bytes originales sin codificar, alineados a byte. */
+    static final int MODO_CRUDO = 2;
+
+    /** Modo de un bloque: un solo byte, que se repite en todo el bloque. */
+    static final int MODO_CONSTANTE = 3;
+
+    /** Ahorro mínimo, como fracción del largo original, que debe prometer la entropía para codificar los datos. */
+    static final double GANANCIA_MINIMA = 0.02;
+
+    /** Cantidad de símbolos de racha: j entre 0 y 30 cubre rachas de hasta 2^31 - 1 repeticiones. */
+    static final int SIMBOLOS_RACHA = 31;
+
+    /** Repeticiones mínimas de un byte para escribirlas como racha; las más cortas se escriben byte a byte. */
+    static final int MIN_RACHA = 4;
+
+    private HuffmanBlock() {
+    }
+
+    /**
+     * Construye el código canónico para un histograma con el {@link HuffmanTreeBuilder} del hilo, sin crear un
+     * árbol de nodos. Si algún código supera {@code largoMaximo}, los largos se recalculan con package-merge y se
+     * suma a {@code bitsExtra} lo que ocupa de más la salida por respetar el límite. Si aparecen más de
+     * 2^largoMaximo símbolos (bytes y rachas con un límite de 8 bits), el límite se eleva a los bits justos para
+     * distinguirlos.
+     *
+     * @param frecuencias Frecuencia de cada símbolo (256 bytes, o bytes y rachas), al menos una distinta de 0.
+     * @param largoMaximo Largo máximo de un código, o 0 para no limitarlo.
+     * @param bitsExtra   Acumulador de los bits perdidos por el límite.
+     * @return El código canónico.
+     */
+    static CanonicalCode codigoPara(long[] frecuencias, int largoMaximo, LongAdder bitsExtra) {
+        byte[] largos = new byte[frecuencias.length];
+        long[] codigos = new long[frecuencias.length];
+        bitsExtra.add(codigoPara(frecuencias, largoMaximo, largos, codigos));
+        return new CanonicalCode(largos, codigos);
+    }
+
+    /**
+     * Igual que {@link #codigoPara(long[], int, LongAdder)}, pero deja los largos y los códigos en arreglos del
+     * llamador, así que no crea ningún objeto: cada bloque reutiliza los arreglos del {@link HuffmanTreeBuilder}
+     * del hilo.
+     *
+     * @param largos  Destino del largo de cada símbolo, del tamaño de {@code frecuencias}.
+     * @param codigos Destino del código de cada símbolo, del mismo tamaño.
+     * @return Los bits que ocupa de más la salida por respetar el límite.
+     */
+    static long codigoPara(long[] frecuencias, int largoMaximo, byte[] largos, long[] codigos) {
+        HuffmanTreeBuilder constructor = HuffmanTreeBuilder.porHilo();
+        long bits = constructor.codeLengths(frecuencias, largos);
+        long extra = 0;
+        if (largoMaximo != 0) {
+            int limite = Math.max(largoMaximo, Long.SIZE - Long.numberOfLeadingZeros(presentes(frecuencias, 0) - 1));
+            for (int s = 0; s < frecuencias.length; s++) {
+                if ((largos[s] & 0xFF) > limite) {
+                    extra = constructor.codeLengths(frecuencias, largos, limite) - bits;
+                    break;
+                }
+            }
+        }
+        constructor.codes(largos, codigos);
+        return extra;
+    }
+
+    /**
+     * Comprime un bloque sin limitar el largo de los códigos.
+     *
+     * @param datos Arreglo con los datos a comprimir.
+     * @param desde Posición del primer byte del bloque.
+     * @param largo Cantidad de bytes del bloque.
+     * @return El bloque comprimido.
+     * @throws IOException Si ocurre un error al escribir los bits.
+     */
+    static byte[] comprimir(byte[] datos, int desde, int largo) throws IOException {
+        return comprimir(datos, desde, largo, 0, 1, 0, new LongAdder());
+    }
+
+    /**
+     * Decide con el histograma, sin construir el código, si los datos se guardan sin codificar.
+     *
+     * @param frecuencias Frecuencia de cada byte.
+     * @param largo       Cantidad de bytes, mayor que 0.
+     * @return {@link #MODO_CONSTANTE} si aparece un solo byte, {@link #MODO_CRUDO} si codificarlos ahorraría menos
+     * de {@link #GANANCIA_MINIMA}, o {@link #MODO_BYTES} si conviene codificarlos.
+     */
+    static int modoSinCodigo(long[] frecuencias, long largo) {
+        if (presentes(frecuencias, 0) == 1) return MODO_CONSTANTE;
+        return incompresible(frecuencias, 0, largo) ? MODO_CRUDO : MODO_BYTES;
+    }
+
+    /**
+     * Compara la entropía del histograma, más la tabla de largos, con guardar los datos tal cual. Un código de
+     * Huffman nunca ocupa menos que la entropía, así que si ni ella ahorra {@link #GANANCIA_MINIMA}, el código
+     * tampoco.
+     *
+     * @param frecuencias Frecuencia de cada símbolo.
+     * @param bitsFijos   Bits que se escriben además de los códigos y la tabla de largos.
+     * @param largo       Cantidad de bytes originales.
+     * @return Si no vale la pena codificar los datos.
+     */
+    private static boolean incompresible(long[] frecuencias, long bitsFijos, long largo) {
+        long total = 0;
+        for (long frecuencia : frecuencias) total += frecuencia;
+        double nats = 0;
+        for (long frecuencia : frecuencias) {
+            if (frecuencia != 0) nats += frecuencia * Math.log((double) total / frecuencia);
+        }
+        double bits = nats / Math.log(2) + bitsFijos + 256 + Byte.SIZE * presentes(frecuencias, 0);
+        return bits >= (1 - GANANCIA_MINIMA) * Byte.SIZE * largo;
+    }
+
+    /**
+     * Comprime un bloque con una tabla de Huffman construida sólo con sus frecuencias.
+     * <p>
+     * Con {@code subflujos} mayor que 1 (el archivo debe llevar {@link HuffmanFormat#FLAG_SUBFLUJOS}), el byte i del
+     * bloque se escribe en el subflujo {@code i % subflujos}, cada uno alineado a byte, y después de la tabla se
+     * escribe {@code byte cantidad | int[cantidad] largo en bytes de cada subflujo}. Así el decodificador puede
+     * avanzar todos los subflujos en el mismo ciclo: cada uno es una cadena de dependencias independiente (el largo
+     * de un código determina dónde empieza el siguiente) y el procesador puede superponer sus búsquedas.
+     * </p>
+     *
+     * @param datos       Arreglo con los datos a comprimir.
+     * @param desde       Posición del primer byte del bloque.
+     * @param largo       Cantidad de bytes del bloque.
+     * @param largoMaximo Largo máximo de un código, o 0 para no limitarlo.
+     * @param subflujos   Cantidad de subflujos intercalados, entre 1 y 255; con 1 no se escribe la tabla de saltos.
+     * @param flags       Flags del archivo que cambian el formato del bloque: {@link HuffmanFormat#FLAG_CRC},
+     *                    {@link HuffmanFormat#FLAG_RACHAS} y {@link HuffmanFormat#FLAG_CRUDO}. El modo se elige
+     *                    con el histograma entre los que habilitan los flags: el que ocupa menos.
+     * @param bitsExtra   Acumulador de los bits perdidos por limitar el largo de los códigos.
+     * @return El bloque comprimido.
+     * @throws IOException Si ocurre un error al escribir los bits.
+     */
+    static byte[] comprimir(byte[] datos, int desde, int largo, int largoMaximo, int subflujos, int flags,
+                            LongAdder bitsExtra) throws IOException {
+        boolean crc = (flags & HuffmanFormat.FLAG_CRC) != 0;
+        boolean rachas = (flags & HuffmanFormat.FLAG_RACHAS) != 0;
+        boolean conModo = (flags & (HuffmanFormat.FLAG_RACHAS | HuffmanFormat.FLAG_CRUDO)) != 0;
+        long[] frecuencias = new long[256];
+        long[] simbolos = null; // frecuencias de bytes y rachas, sólo si se puede elegir el modo
+        long bitsRachas = 0; // bits que siguen a los símbolos de racha
+        if (rachas) {
+            simbolos = new long[256 + SIMBOLOS_RACHA];
+            bitsRachas = contarRachas(datos, desde, largo, frecuencias, simbolos);
+        } else {
+            for (int i = desde; i < desde + largo; i++) {
+                frecuencias[datos[i] & 0xFF]++;
+            }
+        }
+        int modo = MODO_BYTES;
+        if ((flags & HuffmanFormat.FLAG_CRUDO) != 0 && largo > 0) {
+            modo = modoSinCodigo(frecuencias, largo);
+            // las rachas pueden comprimir datos en que los bytes sueltos no ganan nada
+            if (modo == MODO_CRUDO && rachas && !incompresible(simbolos, bitsRachas + Integer.SIZE, largo)) {
+                modo = MODO_BYTES;
+            }
+        }
+        CRC32C suma = new CRC32C();
+        if (crc) suma.update(datos, desde, largo); // mientras el bloque sigue en caché
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(modo == MODO_CRUDO ? largo + 16 : largo / 2 + 64);
+        HuffmanTreeBuilder constructor = HuffmanTreeBuilder.porHilo();
+        byte[] largos = constructor.largosBytes;
+        long[] codigos = constructor.codigosBytes;
+        boolean enSubflujos = false;
+        try (BitWriter writer = new FileBufferedBitWriter(new BufferedOutputStream(salida), 8 * 4 * 1024)) {
+            writer.write(largo, Integer.SIZE);
+            if (crc) writer.write(suma.getValue(), Integer.SIZE);
+            if (modo == MODO_CONSTANTE) {
+                writer.write((byte) MODO_CONSTANTE);
+                writer.write(datos[desde]);
+            } else if (modo == MODO_CRUDO) {
+                writer.write((byte) MODO_CRUDO); // los bytes se copian después de vaciar el escritor
+            } else if (largo == 0) { // el bloque vacío sólo lleva una tabla vacía
+                if (conModo) writer.write((byte) MODO_BYTES);
+                HuffmanFormat.escribirLargos(writer, new byte[256]);
+            } else {
+                long extra = codigoPara(frecuencias, largoMaximo, largos, codigos);
+                boolean conRachas = false;
+                if (rachas) { // se elige el modo que ocupa menos, contando la tabla de rachas y sus bits
+                    long extraRachas = codigoPara(simbolos, largoMaximo, constructor.largosRachas,
+                            constructor.codigosRachas);
+                    long costoBytes = HuffmanTree.costoEnBits(frecuencias, largos);
+                    long costoRachas = HuffmanTree.costoEnBits(simbolos, constructor.largosRachas) + bitsRachas
+                            + Integer.SIZE + Byte.SIZE * (long) presentes(simbolos, 256);
+                    conRachas = costoRachas < costoBytes;
+                    writer.write((byte) (conRachas ? MODO_RACHAS : MODO_BYTES));
+                    if (conRachas) extra = extraRachas;
+                } else if (conModo) {
+                    writer.write((byte) MODO_BYTES);
+                }
+                bitsExtra.add(extra);
+                if (conRachas) { // los bloques con rachas no se dividen en subflujos
+                    escribirRachas(datos, desde, largo, constructor.largosRachas, constructor.codigosRachas, writer);
+                } else {
+                    HuffmanFormat.escribirLargos(writer, largos);
+                    enSubflujos = subflujos > 1;
+                    if (!enSubflujos) {
+                        for (int i = desde; i < desde + largo; i++) {
+                            int simbolo = datos[i] & 0xFF;
+                            writer.write(codigos[simbolo], largos[simbolo]);
+                        }
+                    }
+                }
+            }
+        } // al cerrar el escritor se vacían los bits pendientes
+        if (modo == MODO_CRUDO) {
+            salida.write(datos, desde, largo);
+        } else if (enSubflujos) {
+            escribirSubflujos(datos, desde, largo, largos, codigos, subflujos, new DataOutputStream(salida));
+        }
+        return salida.toByteArray();
+    }
+
+    /**
+     * Cuenta las frecuencias de los bytes y, a la vez, las de los símbolos de {@link #MODO_RACHAS}.
+     *
+     * @param frecuencias Destino de la frecuencia de cada byte.
+     * @param simbolos    Destino de la frecuencia de cada byte suelto y de cada símbolo de racha.
+     * @return La cantidad de bits que siguen a los símbolos de racha.
+     */
+    private static long contarRachas(byte[] datos, int desde, int largo, long[] frecuencias, long[] simbolos) {
+        long bits = 0;
+        int fin = desde + largo;
+        int i = desde;
+        while (i < fin) {
+            byte b = datos[i];
+            int j = i + 1;
+            while (j < fin && datos[j] == b) j++;
+            int repeticiones = j - i - 1; // después del primero
+            frecuencias[b & 0xFF] += j - i;
+            if (repeticiones >= MIN_RACHA) {
+                simbolos[b & 0xFF]++;
+                int k = 31 - Integer.numberOfLeadingZeros(repeticiones);
+                simbolos[256 + k]++;
+                bits += k;
+            } else {
+                simbolos[b & 0xFF] += j - i;
+            }
+            i = j;
+        }
+        return bits;
+    }
+
+    /**
+     * @return Cantidad de símbolos con frecuencia distinta de 0 a partir de {@code desde}.
+     */
+    static int presentes(long[] frecuencias, int desde) {
+        int out = 0;
+        for (int s = desde; s < frecuencias.length; s++) {
+            if (frecuencias[s] != 0) out++;
+        }
+        return out;
+    }
+
+    /**
+     * Escribe las tablas de largos y los códigos de un bloque en {@link #MODO_RACHAS}.
+     */
+    private static void escribirRachas(byte[] datos, int desde, int largo, byte[] largos, long[] codigos,
+                                       BitWriter writer) throws IOException {
+        HuffmanFormat.escribirLargos(writer, largos); // sólo los 256 bytes
+        int mapa = 0;
+        for (int k = 0; k < SIMBOLOS_RACHA; k++) {
+            if (largos[256 + k] != 0) mapa |= 1 << k;
+        }
+        writer.write(mapa, Integer.SIZE);
+        for (int k = 0; k < SIMBOLOS_RACHA; k++) {
+            if (largos[256 + k] != 0) writer.write(largos[256 + k]);
+        }
+
+        int fin = desde + largo;
+        int i = desde;
+        while (i < fin) {
+            byte b = datos[i];
+            int j = i + 1;
+            while (j < fin && datos[j] == b) j++;
+            int repeticiones = j - i - 1;
+            if (repeticiones >= MIN_RACHA) {
+                writer.write(codigos[b & 0xFF], largos[b & 0xFF]);
+                int k = 31 - Integer.numberOfLeadingZeros(repeticiones);
+                writer.write(codigos[256 + k], largos[256 + k]);
+                writer.write(repeticiones - (1 << k), k); // los bits bajo el 1 más alto
+            } else {
+                for (; i < j; i++) writer.write(codigos[b & 0xFF], largos[b & 0xFF]);
+            }
+            i = j;
+        }
+    }
+
+    /**
+     * Escribe la tabla de saltos y los subflujos intercalados de un bloque.
+     */
+    private static void escribirSubflujos(byte[] datos, int desde, int largo, byte[] largos, long[] codigos,
+                                          int subflujos, DataOutputStream salida) throws IOException {
+        ByteArrayOutputStream[] partes = new ByteArrayOutputStream[subflujos];
+        for (int k = 0; k < subflujos; k++) {
+            partes[k] = new ByteArrayOutputStream(largo / subflujos / 2 + 16);
+            try (BitWriter writer = new FileBufferedBitWriter(new BufferedOutputStream(partes[k]), 8 * 4 * 1024)) {
+                for (int i = desde + k; i < desde + largo; i += subflujos) {
+                    int simbolo = datos[i] & 0xFF;
+                    writer.write(codigos[simbolo], largos[simbolo]);
+                }
+            }
+        }
+        salida.writeByte(subflujos);
+        for (ByteArrayOutputStream parte : partes) salida.writeInt(parte.size());
+        for (ByteArrayOutputStream parte : partes) parte.writeTo(salida);
+        salida.flush();
+    }
+
+    /**
+     * Descomprime un bloque escrito sin subflujos ni CRC.
+     *
+     * @param reader Lector posicionado al inicio del bloque comprimido.
+     * @return Los bytes originales del bloque.
+     * @throws IOException Si ocurre un error de lectura o el bloque está dañado.
+     */
+    static byte[] descomprimir(BitReader reader) throws IOException {
+        return descomprimir(reader, HuffmanTableCache.compartido(), 0);
+    }
+
+    /**
+     * Descomprime un bloque, tomando la tabla de decodificación del caché si otro bloque o archivo ya usó los mismos
+     * largos de código. Si el archivo lleva {@link HuffmanFormat#FLAG_CRC}, el CRC32C de los bytes obtenidos se
+     * compara con el del bloque, así que un bloque dañado se detecta en vez de entregar datos equivocados.
+     *
+     * @param reader Lector posicionado al inicio del bloque comprimido.
+     * @param cache  Caché de tablas de decodificación.
+     * @param flags  Flags de la cabecera del archivo, que indican el formato de los bloques.
+     * @return Los bytes originales del bloque.
+     * @throws IOException Si ocurre un error de lectura o el bloque está dañado.
+     */
+    static byte[] descomprimir(BitReader reader, HuffmanTableCache cache, int flags) throws IOException {
+        int largo = (int) reader.peekBits(Integer.SIZE);
+        reader.skipBits(Integer.SIZE);
+        if (largo < 0) throw new IOException("Largo de bloque inválido: " + largo);
+        byte[] out = new byte[largo];
+        int esperado = 0;
+        if ((flags & HuffmanFormat.FLAG_CRC) != 0) {
+            esperado = (int) reader.peekBits(Integer.SIZE);
+            reader.skipBits(Integer.SIZE);
+        }
+
+        int modo = MODO_BYTES;
+        if ((flags & (HuffmanFormat.FLAG_RACHAS | HuffmanFormat.FLAG_CRUDO)) != 0) {
+            modo = reader.nextByte();
+            boolean valido = modo == MODO_BYTES
+                    || modo == MODO_RACHAS && (flags & HuffmanFormat.FLAG_RACHAS) != 0
+                    || (modo == MODO_CRUDO || modo == MODO_CONSTANTE) && (flags & HuffmanFormat.FLAG_CRUDO) != 0;
+            if (!valido) throw new IOException("Modo de bloque inválido: " + modo);
+        }
+        if (modo == MODO_CRUDO) {
+            reader.nextBytes(out, 0, largo);
+        } else if (modo == MODO_CONSTANTE) {
+            Arrays.fill(out, reader.nextByte());
+        } else {
+            leerCodificado(reader, cache, flags, modo, out);
+        }
+        if ((flags & HuffmanFormat.FLAG_CRC) != 0) {
+            CRC32C suma = new CRC32C();
+            suma.update(out); // recién decodificado, todavía en caché
+            if ((int) suma.getValue() != esperado) throw new IOException("Bloque dañado: el CRC32C no coincide");
+        }
+        return out;
+    }
+
+    /**
+     * Lee las tablas de largos y decodifica los bits de un bloque en {@link #MODO_BYTES} o {@link #MODO_RACHAS}.
+     */
+    private static void leerCodificado(BitReader reader, HuffmanTableCache cache, int flags, int modo, byte[] out)
+            throws IOException {
+        int largo = out.length;
+        byte[] largos = HuffmanFormat.leerLargos(reader);
+        if (modo == MODO_RACHAS) {
+            largos = Arrays.copyOf(largos, 256 + SIMBOLOS_RACHA);
+            int mapa = (int) reader.peekBits(Integer.SIZE);
+            reader.skipBits(Integer.SIZE);
+            for (int k = 0; k < SIMBOLOS_RACHA; k++) {
+                if ((mapa & (1 << k)) != 0) largos[256 + k] = reader.nextByte();
+            }
+        }
+        if (largo > 0) {
+            HuffmanDecodeTable tabla;
+            try {
+                tabla = cache.obtener(largos);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Tabla de largos inválida", e);
+            }
+            if (modo == MODO_RACHAS) {
+                leerRachas(reader, tabla, out);
+            } else if ((flags & HuffmanFormat.FLAG_SUBFLUJOS) != 0) {
+                leerSubflujos(reader, tabla, out);
+            } else {
+                for (int i = 0; i < largo; i++) {
+                    out[i] = (byte) tabla.decodeSymbol(reader);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodifica un bloque en {@link #MODO_RACHAS}: cada racha se copia de una vez con {@link Arrays#fill}.
+     */
+    private static void leerRachas(BitReader reader, HuffmanDecodeTable tabla, byte[] out) throws IOException {
+        int i = 0;
+        int anterior = -1;
+        while (i < out.length) {
+            int simbolo = tabla.decodeSymbol(reader);
+            if (simbolo < 256) {
+                out[i++] = (byte) simbolo;
+                anterior = simbolo;
+                continue;
+            }
+            int k = simbolo - 256;
+            int repeticiones = 1 << k;
+            if (k > 0) {
+                repeticiones |= (int) reader.peekBits(k);
+                reader.skipBits(k);
+            }
+            if (anterior < 0 || repeticiones > out.length - i) throw new IOException("Racha inválida");
+            Arrays.fill(out, i, i + repeticiones, (byte) anterior);
+            i += repeticiones;
+        }
+    }
+
+    /**
+     * Lee la tabla de saltos y los bytes de todos los subflujos, y los decodifica con
+     * {@link HuffmanDecodeTable#decodeSubflujos}.
+     */
+    private static void leerSubflujos(BitReader reader, HuffmanDecodeTable tabla, byte[] out) throws IOException {
+        int subflujos = reader.nextByte() & 0xFF;
+        if (subflujos == 0) throw new IOException("Cantidad de subflujos inválida");
+        int[] inicios = new int[subflujos + 1];
+        for (int k = 0; k < subflujos; k++) {
+            int largo = (int) reader.peekBits(Integer.SIZE);
+            reader.skipBits(Integer.SIZE);
+            if (largo < 0 || inicios[k] + (long) largo > Integer.MAX_VALUE - Long.BYTES) {
+                throw new IOException("Largo de subflujo inválido: " + largo);
+            }
+            inicios[k + 1] = inicios[k] + largo;
+        }
+        byte[] bytes = new byte[inicios[subflujos] + Long.BYTES]; // con 8 bytes en cero al final
+        reader.nextBytes(bytes, 0, inicios[subflujos]);
+        tabla.decodeSubflujos(bytes, inicios, out);
+    }
+}
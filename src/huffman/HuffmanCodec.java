@@ -0,0 +1,369 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Compresión y descompresión en memoria, de un {@link ByteBuffer} a otro, pensada para datos pequeños.
+ * <p>
+ * El resultado tiene el mismo formato que un bloque de {@link HuffmanBlock} (largo original, tabla de largos y
+ * bits), así que se puede leer también con {@link HuffmanBlock#descomprimir(BitReader)}. Los códigos se limitan a
+ * {@link #LARGO_MAXIMO} bits para que la descompresión sea siempre una sola búsqueda en una tabla pequeña.
+ * </p>
+ * <p>
+ * Todo el estado de trabajo (histograma, códigos y tabla de decodificación) está en arreglos de la instancia que se
+ * reutilizan en cada llamada, y los códigos se construyen con el {@link HuffmanTreeBuilder} del hilo, por lo que
+ * después de la primera llamada no se crea ningún objeto. Una instancia no se puede usar desde varios hilos a la
+ * vez; {@link #porHilo()} entrega una por hilo.
+ * Funciona igual con buffers del heap y directos, y con cualquier orden de bytes del buffer.
+ * </p>
+ */
+public final class HuffmanCodec {
+
+    /** Largo máximo de los códigos que genera {@link #compress}: la tabla de decodificación ocupa 16 KB. */
+    public static final int LARGO_MAXIMO = 12;
+
+    /** Bytes fijos de la salida: int largo_original y mapa de 256 bits con los bytes presentes. */
+    private static final int CABECERA = Integer.BYTES + 256 / Byte.SIZE;
+
+    private static final ThreadLocal<HuffmanCodec> POR_HILO = ThreadLocal.withInitial(HuffmanCodec::new);
+
+    /** Frecuencia de cada byte. */
+    private final long[] frecuencias = new long[256];
+
+    /** Bytes presentes como (frecuencia << 8 | byte), ordenados por frecuencia para limitar los largos. */
+    private final long[] orden = new long[256];
+
+    /** Largo del código de cada byte, 0 si no aparece. */
+    private final byte[] largos = new byte[256];
+
+    /** Código canónico de cada byte, alineado a la derecha. */
+    private final long[] codigos = new long[256];
+
+    /** Datos del código canónico por largo, como en {@link CanonicalCode}, para decodificar bit a bit. */
+    private final int[] cantidad = new int[CanonicalCode.MAX_LARGO + 1];
+    private final long[] primerCodigo = new long[CanonicalCode.MAX_LARGO + 1];
+    private final int[] primerIndice = new int[CanonicalCode.MAX_LARGO + 1];
+    private final int[] simbolos = new int[256];
+
+    /** Tabla de decodificación, entradas {@code (byte << 8) | largo} como en {@link HuffmanDecodeTable}. */
+    private final int[] tabla = new int[1 << LARGO_MAXIMO];
+
+    /** Estado del escritor y lector de bits sobre el buffer actual. */
+    private ByteBuffer buffer;
+    private boolean ordenGrande;
+    private int indice;
+    private int fin;
+    private long acumulador;
+    private int bitsEnAcumulador;
+    private long posicionBits;
+
+    /**
+     * @return La instancia del hilo actual, que se reutiliza en todas las llamadas desde ese hilo.
+     */
+    public static HuffmanCodec porHilo() {
+        return POR_HILO.get();
+    }
+
+    /**
+     * @param largo Bytes a comprimir.
+     * @return La máxima cantidad de bytes que puede ocupar la compresión de {@code largo} bytes cualquiera.
+     */
+    public static int maxCompressedLength(int largo) {
+        // Un código de 8 bits para cada byte ya es un código prefijo, así que los bits nunca superan 8 por byte
+        return CABECERA + 256 + largo;
+    }
+
+    /**
+     * Lee el largo original de unos datos comprimidos, sin descomprimirlos ni mover la posición del buffer.
+     *
+     * @param src Buffer posicionado al inicio de los datos comprimidos.
+     * @return Los bytes que ocupan los datos descomprimidos.
+     * @throws IOException Si los datos están truncados o el largo es inválido.
+     */
+    public static int decompressedLength(ByteBuffer src) throws IOException {
+        if (src.remaining() < Integer.BYTES) throw new IOException("Datos comprimidos truncados");
+        int largo = src.order() == ByteOrder.BIG_ENDIAN ? src.getInt(src.position())
+                : Integer.reverseBytes(src.getInt(src.position()));
+        if (largo < 0) throw new IOException("Largo inválido: " + largo);
+        return largo;
+    }
+
+    /**
+     * Comprime los bytes restantes de {@code src} en {@code dst}. La posición de {@code src} queda en su límite y la
+     * de {@code dst} avanza los bytes escritos.
+     *
+     * @param src Datos a comprimir.
+     * @param dst Destino, con espacio para al menos {@link #maxCompressedLength(int)} bytes si no se conoce el
+     *            tamaño exacto.
+     * @return Los bytes escritos en {@code dst}.
+     * @throws BufferOverflowException Si {@code dst} no tiene espacio suficiente (no se escribe nada).
+     */
+    public int compress(ByteBuffer src, ByteBuffer dst) {
+        int desde = src.position();
+        int largo = src.remaining();
+        Arrays.fill(frecuencias, 0);
+        for (int i = desde; i < desde + largo; i++) {
+            frecuencias[src.get(i) & 0xFF]++;
+        }
+        long bits = calcularLargos(largo);
+        HuffmanTreeBuilder.porHilo().codes(largos, codigos);
+        int presentes = 0;
+        for (byte l : largos) {
+            if (l != 0) presentes++;
+        }
+        long total = CABECERA + presentes + (bits + 7) / 8;
+        if (total > dst.remaining()) throw new BufferOverflowException();
+
+        comenzar(dst);
+        escribir(largo, Integer.SIZE);
+        for (int i = 0; i < 256; i += Long.SIZE) { // mapa de bytes presentes
+            long palabra = 0;
+            for (int j = 0; j < Long.SIZE; j++) palabra = (palabra << 1) | (largos[i + j] != 0 ? 1 : 0);
+            escribir(palabra, Long.SIZE);
+        }
+        for (int s = 0; s < 256; s++) {
+            if (largos[s] != 0) escribir(largos[s], Byte.SIZE);
+        }
+        for (int i = desde; i < desde + largo; i++) {
+            int s = src.get(i) & 0xFF;
+            escribir(codigos[s], largos[s]);
+        }
+        terminar();
+
+        src.position(src.limit());
+        dst.position(indice);
+        buffer = null;
+        return (int) total;
+    }
+
+    /**
+     * Descomprime unos datos escritos con {@link #compress} (o un bloque de {@link HuffmanBlock}). La posición de
+     * {@code src} avanza los bytes comprimidos y la de {@code dst} los bytes descomprimidos.
+     *
+     * @param src Datos comprimidos.
+     * @param dst Destino, con espacio para al menos {@link #decompressedLength(ByteBuffer)} bytes.
+     * @return Los bytes escritos en {@code dst}.
+     * @throws IOException             Si los datos están truncados o dañados.
+     * @throws BufferOverflowException Si {@code dst} no tiene espacio suficiente (no se escribe nada).
+     */
+    public int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+        int largo = decompressedLength(src);
+        if (largo > dst.remaining()) throw new BufferOverflowException();
+        if (src.remaining() < CABECERA) throw new IOException("Datos comprimidos truncados");
+
+        comenzarLectura(src);
+        posicionBits += Integer.SIZE;
+        long[] mapa = codigos; // se usa como espacio temporal, los códigos se calculan después
+        for (int i = 0; i < 4; i++) {
+            mapa[i] = leer(Long.SIZE);
+        }
+        for (int s = 0; s < 256; s++) {
+            boolean presente = (mapa[s / Long.SIZE] << (s % Long.SIZE)) < 0;
+            int l = presente ? (int) leer(Byte.SIZE) : 0;
+            if (l > CanonicalCode.MAX_LARGO) throw new IOException("Tabla de largos inválida");
+            largos[s] = (byte) l;
+        }
+        try {
+            HuffmanTreeBuilder.porHilo().codes(largos, codigos);
+        } catch (IllegalArgumentException e) { // los largos no forman un código prefijo
+            throw new IOException("Tabla de largos inválida", e);
+        }
+
+        int salida = dst.position();
+        int maximo = largoMaximo();
+        if (largo > 0 && maximo == 0) throw new IOException("Tabla de largos inválida");
+        if (maximo <= LARGO_MAXIMO) {
+            llenarTabla(maximo);
+            for (int i = 0; i < largo; i++) {
+                int entrada = tabla[(int) leerSinAvanzar(maximo)];
+                if (entrada == 0) throw new IOException("Código Huffman inválido");
+                posicionBits += entrada & 0xFF;
+                dst.put(salida + i, (byte) (entrada >>> 8));
+            }
+        } else { // códigos de otro compresor, más largos que la tabla: se decodifican bit a bit
+            prepararBitABit();
+            for (int i = 0; i < largo; i++) {
+                dst.put(salida + i, (byte) decodificarBitABit(maximo));
+            }
+        }
+        long consumidos = (posicionBits + 7) >>> 3;
+        if (consumidos > fin - src.position()) throw new IOException("Datos comprimidos truncados");
+
+        src.position(src.position() + (int) consumidos);
+        dst.position(salida + largo);
+        buffer = null;
+        return largo;
+    }
+
+    /**
+     * Calcula el largo de código de cada byte con el {@link HuffmanTreeBuilder} del hilo. Si algún código supera
+     * {@link #LARGO_MAXIMO}, se acorta y se alargan los códigos de los bytes menos frecuentes hasta volver a cumplir
+     * la desigualdad de Kraft.
+     *
+     * @param largo Bytes de entrada, para acotar el resultado.
+     * @return Los bits que ocupan los códigos de toda la entrada.
+     */
+    private long calcularLargos(int largo) {
+        long bits = HuffmanTreeBuilder.porHilo().codeLengths(frecuencias, largos);
+        if (largoMaximo() <= LARGO_MAXIMO) return bits;
+
+        int n = 0;
+        for (int s = 0; s < 256; s++) {
+            if (largos[s] != 0) orden[n++] = (frecuencias[s] << 8) | s;
+        }
+        Arrays.sort(orden, 0, n);
+        long exceso = -(1L << LARGO_MAXIMO); // suma de Kraft menos 1, en unidades de 2^-LARGO_MAXIMO
+        for (int i = 0; i < n; i++) {
+            int s = (int) (orden[i] & 0xFF);
+            largos[s] = (byte) Math.min(largos[s], LARGO_MAXIMO);
+            exceso += 1L << (LARGO_MAXIMO - largos[s]);
+        }
+        for (int i = 0; i < n && exceso > 0; i++) {
+            int s = (int) (orden[i] & 0xFF);
+            while (exceso > 0 && largos[s] < LARGO_MAXIMO) {
+                largos[s]++;
+                exceso -= 1L << (LARGO_MAXIMO - largos[s]);
+            }
+        }
+
+        bits = 0;
+        for (int i = 0; i < n; i++) {
+            bits += (orden[i] >>> 8) * largos[(int) (orden[i] & 0xFF)];
+        }
+        if (bits > 8L * largo) { // el ajuste no es óptimo; un código de largo fijo nunca ocupa más de 8 bits por byte
+            int fijo = Long.SIZE - Long.numberOfLeadingZeros(n - 1);
+            for (int i = 0; i < n; i++) largos[(int) (orden[i] & 0xFF)] = (byte) fijo;
+            bits = (long) fijo * largo;
+        }
+        return bits;
+    }
+
+    /**
+     * Agrupa los bytes por largo a partir de {@link #largos} y {@link #codigos}: como en {@link CanonicalCode}, los
+     * códigos de un mismo largo son consecutivos en el orden de los bytes.
+     */
+    private void prepararBitABit() {
+        Arrays.fill(cantidad, 0);
+        for (byte l : largos) cantidad[l & 0xFF]++;
+        int indiceSimbolo = 0;
+        for (int l = 1; l <= CanonicalCode.MAX_LARGO; l++) {
+            primerIndice[l] = indiceSimbolo;
+            indiceSimbolo += cantidad[l];
+        }
+        // primerIndice avanza como cursor al asignar y se restaura al final
+        for (int s = 0; s < 256; s++) {
+            int l = largos[s] & 0xFF;
+            if (l != 0) simbolos[primerIndice[l]++] = s;
+        }
+        for (int l = 1; l <= CanonicalCode.MAX_LARGO; l++) {
+            primerIndice[l] -= cantidad[l];
+            primerCodigo[l] = cantidad[l] == 0 ? 0 : codigos[simbolos[primerIndice[l]]];
+        }
+    }
+
+    private int largoMaximo() {
+        int maximo = 0;
+        for (byte l : largos) maximo = Math.max(maximo, l & 0xFF);
+        return maximo;
+    }
+
+    /**
+     * Llena la tabla de decodificación de {@code k} bits: cada código ocupa todas las entradas que comienzan con él.
+     */
+    private void llenarTabla(int k) {
+        Arrays.fill(tabla, 0, 1 << k, 0);
+        for (int s = 0; s < 256; s++) {
+            int l = largos[s];
+            if (l == 0) continue;
+            int desde = (int) (codigos[s] << (k - l));
+            int hasta = (int) ((codigos[s] + 1) << (k - l));
+            Arrays.fill(tabla, desde, hasta, (s << 8) | l);
+        }
+    }
+
+    private int decodificarBitABit(int maximo) throws IOException {
+        long codigo = 0;
+        for (int l = 1; l <= maximo; l++) {
+            codigo = (codigo << 1) | leer(1);
+            long desplazamiento = codigo - primerCodigo[l];
+            if (desplazamiento >= 0 && desplazamiento < cantidad[l]) {
+                return simbolos[primerIndice[l] + (int) desplazamiento];
+            }
+        }
+        throw new IOException("Código Huffman inválido");
+    }
+
+    /*
+     * Escritura de bits: un acumulador de 64 bits que se copia entero al buffer cuando se llena. Se usan índices
+     * absolutos para no depender de la posición del buffer mientras se escribe.
+     */
+
+    private void comenzar(ByteBuffer dst) {
+        buffer = dst;
+        ordenGrande = dst.order() == ByteOrder.BIG_ENDIAN;
+        indice = dst.position();
+        acumulador = 0;
+        bitsEnAcumulador = 0;
+    }
+
+    private void escribir(long code, int length) {
+        int libres = Long.SIZE - bitsEnAcumulador;
+        acumulador |= (code << (Long.SIZE - length)) >>> bitsEnAcumulador;
+        if (length < libres) {
+            bitsEnAcumulador += length;
+            return;
+        }
+        buffer.putLong(indice, ordenGrande ? acumulador : Long.reverseBytes(acumulador));
+        indice += Long.BYTES;
+        int resto = length - libres;
+        acumulador = resto == 0 ? 0 : code << (Long.SIZE - resto);
+        bitsEnAcumulador = resto;
+    }
+
+    private void terminar() {
+        for (int i = 0; i < bitsEnAcumulador; i += Byte.SIZE) {
+            buffer.put(indice++, (byte) (acumulador >>> (Long.SIZE - Byte.SIZE - i)));
+        }
+    }
+
+    /*
+     * Lectura de bits: se miran 8 bytes a partir del byte actual, completando con ceros después del final.
+     */
+
+    private void comenzarLectura(ByteBuffer src) {
+        buffer = src;
+        ordenGrande = src.order() == ByteOrder.BIG_ENDIAN;
+        indice = src.position();
+        fin = src.limit();
+        posicionBits = 0;
+    }
+
+    private long leerSinAvanzar(int n) {
+        int i = indice + (int) (posicionBits >>> 3);
+        long ventana;
+        if (i + Long.BYTES <= fin) {
+            ventana = buffer.getLong(i);
+            if (!ordenGrande) ventana = Long.reverseBytes(ventana);
+        } else {
+            ventana = 0;
+            for (int j = 0; j < Long.BYTES; j++) {
+                ventana = (ventana << 8) | (i + j < fin ? buffer.get(i + j) & 0xFF : 0);
+            }
+        }
+        return (ventana << (posicionBits & 7)) >>> (Long.SIZE - n);
+    }
+
+    private long leer(int n) {
+        if (n == Long.SIZE) { // leerSinAvanzar sólo ve 57 bits seguros
+            long alto = leer(Integer.SIZE);
+            return (alto << Integer.SIZE) | leer(Integer.SIZE);
+        }
+        long out = leerSinAvanzar(n);
+        posicionBits += n;
+        return out;
+    }
+}
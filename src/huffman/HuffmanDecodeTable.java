@@ -0,0 +1,221 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Tabla de decodificación de un código canónico que resuelve un símbolo con una sola búsqueda.
+ * <p>
+ * En vez de bajar por el árbol bit a bit, se miran los siguientes K bits de la entrada y se usan como índice de la
+ * tabla primaria, que entrega el símbolo y el largo de su código (los bits que realmente hay que consumir). Los
+ * códigos más largos que K comparten su prefijo de K bits con otros; la entrada de ese prefijo apunta a una tabla
+ * secundaria indexada por los bits siguientes. Los códigos que no caben ni en la tabla secundaria (más de
+ * K + {@link #MAX_BITS_SECUNDARIOS} bits) se decodifican bit a bit con {@link CanonicalCode#decodeSymbol}.
+ * </p>
+ * <p>
+ * Formato de las entradas: {@code (símbolo << 8) | largo}. En la tabla primaria, una entrada negativa apunta a una
+ * tabla secundaria: {@code (desplazamiento << 5) | bits} con el bit 31 encendido. El valor 0 indica un código
+ * inválido (sólo ocurre con códigos incompletos).
+ * </p>
+ */
+public class HuffmanDecodeTable {
+
+    /** Bits de la tabla primaria por defecto: 2^11 entradas (8 KB), cabe en el caché L1. */
+    static final int BITS_PRIMARIOS = 11;
+
+    /** Máxima cantidad de bits que resuelve una tabla secundaria. */
+    static final int MAX_BITS_SECUNDARIOS = 8;
+
+    /** Entrada de una tabla secundaria cuyo código es demasiado largo y se decodifica bit a bit. */
+    private static final int LENTO = -1;
+
+    /** Código canónico del que se construyó la tabla. */
+    final CanonicalCode codigo;
+
+    /** Cantidad de bits con que se indexa la tabla primaria. */
+    final int bitsPrimarios;
+
+    /** Tabla primaria, de 2^bitsPrimarios entradas. */
+    final int[] primaria;
+
+    /** Todas las tablas secundarias, una a continuación de la otra. */
+    final int[] secundaria;
+
+    /**
+     * Construye la tabla con {@link #BITS_PRIMARIOS} bits de tabla primaria.
+     *
+     * @param codigo Código canónico a decodificar.
+     */
+    public HuffmanDecodeTable(CanonicalCode codigo) {
+        this(codigo, BITS_PRIMARIOS);
+    }
+
+    /**
+     * Construye la tabla de decodificación directamente desde los códigos canónicos, sin construir un árbol.
+     *
+     * @param codigo Código canónico a decodificar.
+     * @param bits   Bits de la tabla primaria (K). Si el código más largo es más corto, se usa su largo.
+     */
+    public HuffmanDecodeTable(CanonicalCode codigo, int bits) {
+        if (bits < 1 || bits > 24) throw new IllegalArgumentException("bits fuera de rango: " + bits);
+        this.codigo = codigo;
+        this.bitsPrimarios = Math.min(bits, codigo.largoMaximo);
+        int k = bitsPrimarios;
+        primaria = new int[1 << k];
+
+        // Largo máximo de los códigos que comparten cada prefijo de K bits, para dimensionar las secundarias
+        int[] largoPorPrefijo = new int[1 << k];
+        for (int s = 0; s < codigo.largos.length; s++) {
+            int l = codigo.length(s);
+            if (l > k) {
+                int prefijo = (int) (codigo.code(s) >>> (l - k));
+                largoPorPrefijo[prefijo] = Math.max(largoPorPrefijo[prefijo], Math.min(l, k + MAX_BITS_SECUNDARIOS));
+            }
+        }
+        int totalSecundaria = 0;
+        for (int prefijo = 0; prefijo < primaria.length; prefijo++) {
+            if (largoPorPrefijo[prefijo] == 0) continue;
+            int bitsSub = largoPorPrefijo[prefijo] - k;
+            primaria[prefijo] = Integer.MIN_VALUE | (totalSecundaria << 5) | bitsSub;
+            totalSecundaria += 1 << bitsSub;
+        }
+        secundaria = new int[totalSecundaria];
+
+        // Cada código llena todas las entradas que comienzan con él
+        for (int s = 0; s < codigo.largos.length; s++) {
+            int l = codigo.length(s);
+            if (l == 0) continue;
+            long c = codigo.code(s);
+            int entrada = (s << 8) | l;
+            if (l <= k) {
+                int desde = (int) (c << (k - l));
+                int hasta = (int) ((c + 1) << (k - l));
+                for (int i = desde; i < hasta; i++) primaria[i] = entrada;
+            } else {
+                int puntero = primaria[(int) (c >>> (l - k))];
+                int desplazamiento = (puntero & Integer.MAX_VALUE) >>> 5;
+                int bitsSub = puntero & 0x1F;
+                int resto = l - k; // bits del código después del prefijo
+                if (resto <= bitsSub) {
+                    int sufijo = (int) (c & ((1L << resto) - 1));
+                    int desde = desplazamiento + (sufijo << (bitsSub - resto));
+                    int hasta = desplazamiento + ((sufijo + 1) << (bitsSub - resto));
+                    for (int i = desde; i < hasta; i++) secundaria[i] = entrada;
+                } else {
+                    int sufijo = (int) ((c >>> (resto - bitsSub)) & ((1L << bitsSub) - 1));
+                    secundaria[desplazamiento + sufijo] = LENTO;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodifica el siguiente símbolo mirando K bits de la entrada y consumiendo sólo el largo de su código.
+     *
+     * @param reader Lector posicionado al inicio de un código.
+     * @return El símbolo decodificado.
+     * @throws IOException Si ocurre un error de lectura o los bits no corresponden a ningún código.
+     */
+    public int decodeSymbol(BitReader reader) throws IOException {
+        int entrada = primaria[(int) reader.peekBits(bitsPrimarios)];
+        if (entrada < 0) { // el código es más largo que K: se busca en la tabla secundaria
+            int bitsSub = entrada & 0x1F;
+            int desplazamiento = (entrada & Integer.MAX_VALUE) >>> 5;
+            int sufijo = (int) (reader.peekBits(bitsPrimarios + bitsSub) & ((1 << bitsSub) - 1));
+            entrada = secundaria[desplazamiento + sufijo];
+            if (entrada == LENTO) return codigo.decodeSymbol(reader);
+        }
+        if (entrada == 0) throw new IOException("Código Huffman inválido");
+        reader.skipBits(entrada & 0xFF);
+        return entrada >>> 8;
+    }
+
+    /**
+     * Decodifica un bloque dividido en subflujos intercalados: el símbolo i se lee del subflujo
+     * {@code i % subflujos}. Cada subflujo lleva su posición en una variable local y se avanzan todos en la misma
+     * vuelta; como el largo de un código sólo determina dónde empieza el siguiente código de su propio subflujo, el
+     * procesador puede superponer las búsquedas en la tabla de los distintos subflujos.
+     *
+     * @param bytes   Bytes de todos los subflujos, uno a continuación del otro, con al menos 8 bytes en cero al
+     *                final (para leer siempre 8 bytes de una vez).
+     * @param inicios Byte donde comienza cada subflujo y, en la última posición, donde termina el último.
+     * @param out     Destino de los símbolos decodificados; se llena completo.
+     * @throws IOException Si algún subflujo no corresponde al código o termina antes de completar sus símbolos.
+     */
+    public void decodeSubflujos(byte[] bytes, int[] inicios, byte[] out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int subflujos = inicios.length - 1;
+        long[] posiciones = new long[subflujos]; // en bits
+        for (int k = 0; k < subflujos; k++) posiciones[k] = (long) inicios[k] * Byte.SIZE;
+
+        try {
+            int i = 0;
+            int completas = out.length / subflujos * subflujos; // vueltas en que todos los subflujos tienen un símbolo
+            if (subflujos == 4) { // el caso habitual, con las posiciones en registros
+                long p0 = posiciones[0], p1 = posiciones[1], p2 = posiciones[2], p3 = posiciones[3];
+                for (; i < completas; i += 4) {
+                    int e0 = buscar(buffer, p0), e1 = buscar(buffer, p1);
+                    int e2 = buscar(buffer, p2), e3 = buscar(buffer, p3);
+                    p0 += e0 & 0xFF;
+                    p1 += e1 & 0xFF;
+                    p2 += e2 & 0xFF;
+                    p3 += e3 & 0xFF;
+                    out[i] = (byte) (e0 >>> 8);
+                    out[i + 1] = (byte) (e1 >>> 8);
+                    out[i + 2] = (byte) (e2 >>> 8);
+                    out[i + 3] = (byte) (e3 >>> 8);
+                }
+                posiciones[0] = p0;
+                posiciones[1] = p1;
+                posiciones[2] = p2;
+                posiciones[3] = p3;
+            }
+            for (int k = 0; i < out.length; i++) {
+                int entrada = buscar(buffer, posiciones[k]);
+                posiciones[k] += entrada & 0xFF;
+                out[i] = (byte) (entrada >>> 8);
+                if (++k == subflujos) k = 0;
+            }
+        } catch (IndexOutOfBoundsException e) { // un subflujo dañado se salió de los bytes del bloque
+            throw new IOException("Subflujo truncado", e);
+        }
+        for (int k = 0; k < subflujos; k++) {
+            if (posiciones[k] > (long) inicios[k + 1] * Byte.SIZE) throw new IOException("Subflujo truncado");
+        }
+    }
+
+    /**
+     * Busca el código que comienza en el bit {@code posicion}.
+     *
+     * @return La entrada {@code (símbolo << 8) | largo}.
+     */
+    private int buscar(ByteBuffer buffer, long posicion) throws IOException {
+        long ventana = buffer.getLong((int) (posicion >>> 3)) << (posicion & 7); // al menos 57 bits válidos
+        int entrada = primaria[(int) (ventana >>> (Long.SIZE - bitsPrimarios))];
+        if (entrada < 0) {
+            int bitsSub = entrada & 0x1F;
+            int desplazamiento = (entrada & Integer.MAX_VALUE) >>> 5;
+            int sufijo = (int) (ventana >>> (Long.SIZE - bitsPrimarios - bitsSub)) & ((1 << bitsSub) - 1);
+            entrada = secundaria[desplazamiento + sufijo];
+            if (entrada == LENTO) return buscarLento(buffer, posicion);
+        }
+        if (entrada == 0) throw new IOException("Código Huffman inválido");
+        return entrada;
+    }
+
+    /**
+     * Decodifica bit a bit, con las tablas del código canónico, un código demasiado largo para las tablas.
+     */
+    private int buscarLento(ByteBuffer buffer, long posicion) throws IOException {
+        long c = 0;
+        for (int l = 1; l <= codigo.largoMaximo; l++) {
+            long bit = posicion + l - 1;
+            c = (c << 1) | ((buffer.get((int) (bit >>> 3)) >>> (7 - (bit & 7))) & 1);
+            long desplazamiento = c - codigo.primerCodigo[l];
+            if (desplazamiento >= 0 && desplazamiento < codigo.cantidad[l]) {
+                return (codigo.simbolos[codigo.primerIndice[l] + (int) desplazamiento] << 8) | l;
+            }
+        }
+        throw new IOException("Código Huffman inválido");
+    }
+}
@@ -0,0 +1,711 @@
+package huffman;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Clase para decodificar datos comprimidos utilizando el algoritmo de Huffman.
+ * Esta clase proporciona funcionalidades para decodificar datos previamente comprimidos
+ * utilizando el algoritmo de Huffman.
+ *
+ * @author Nicolás Verdugo
+ * @version 1.0
+ */
+public class HuffmanDecoder {
+
+    /**
+     * Nombre del archivo de entrada a decodificar.
+     */
+    private String inputFileName;
+
+    /**
+     * Nombre del archivo de salida donde se almacenará la versión decodificada de los datos.
+     */
+    private String outputFileName;
+
+    /**
+     * Si es true (por defecto) se decodifica con {@link HuffmanDecodeTable}, varios bits por búsqueda; si es false
+     * se recorre el código bit a bit con un {@link HuffmanIterator}.
+     */
+    private boolean usarTabla = true;
+
+    /**
+     * Pool de hilos donde se descomprimen los archivos por bloques.
+     */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Caché de tablas de decodificación, por defecto el compartido por todos los decodificadores.
+     */
+    private HuffmanTableCache cache = HuffmanTableCache.compartido();
+
+    /**
+     * Diccionarios conocidos, por identificador, para los archivos comprimidos con {@link HuffmanDictionary}.
+     */
+    private final Map<Integer, HuffmanDictionary> diccionarios = new HashMap<>();
+
+    /**
+     * Constructor de la clase HuffmanDecoder.
+     *
+     * @param inputFileName  Nombre del archivo de entrada que contiene los datos comprimidos a decodificar.
+     * @param outputFileName Nombre del archivo de salida donde se almacenará la versión decodificada de los datos.
+     */
+    public HuffmanDecoder(String inputFileName, String outputFileName) {
+        this.inputFileName = inputFileName;
+        this.outputFileName = outputFileName;
+    }
+
+    /**
+     * Elige la estrategia de decodificación de los archivos con código canónico. Ambas producen el mismo resultado;
+     * la opción existe para poder comparar su rendimiento.
+     *
+     * @param usarTabla true para decodificar con tabla (por defecto), false para recorrer bit a bit con el iterador.
+     */
+    public void setUsarTabla(boolean usarTabla) {
+        this.usarTabla = usarTabla;
+    }
+
+    /**
+     * Elige el caché de tablas de decodificación. Por defecto se usa {@link HuffmanTableCache#compartido()}, así que
+     * los archivos con la misma tabla de largos no vuelven a construir su tabla aunque se usen decodificadores
+     * distintos.
+     *
+     * @param cache Caché a usar; con {@code new HuffmanTableCache(1)} prácticamente se desactiva.
+     */
+    public void setCache(HuffmanTableCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Agrega un diccionario con el que se pueden haber comprimido los archivos a decodificar. Un archivo comprimido
+     * con un diccionario sólo guarda su identificador, así que sin el diccionario no se puede decodificar.
+     *
+     * @param diccionario Diccionario; reemplaza a otro con el mismo identificador.
+     */
+    public void agregarDiccionario(HuffmanDictionary diccionario) {
+        diccionarios.put(diccionario.id, diccionario);
+    }
+
+    /**
+     * Elige el pool de hilos donde se descomprimen en paralelo los bloques de los archivos
+     * {@link HuffmanFormat#VERSION_BLOQUES}. Por defecto se usa el pool común.
+     *
+     * @param pool Pool de hilos.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Decodifica los datos comprimidos utilizando el algoritmo de Huffman.
+     * Este método decodifica los datos comprimidos previamente utilizando el algoritmo de Huffman (archivo de entrada)
+     * y guarda la versión decodificada en el archivo de salida especificado en el constructor.
+     * <p>El formato se reconoce por la cabecera del archivo (ver {@link HuffmanFormat}); los archivos sin cabecera
+     * se leen con el formato ASCII original.</p>
+     */
+    public void decode() {
+        File archivo = new File(inputFileName); // Se crea un objeto de la clase File para escribir en consola el nombre del archivo
+        if (archivo.length() == 0) { // Si el archivo está vacío, retorna la funcion para evitar que e programa se caiga
+            System.out.println(archivo.getName()+" está vacío (no hay texto que decodificar)"); // Informa por consola que el archivo a decodificar se encuentra vacio
+            try {
+                new FileOutputStream(outputFileName).close(); // Deja el archivo de salida vacío, igual que el original
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return; // Retorna, lo que hace que el programa termine sin errores
+        }
+        try {
+            int version = HuffmanFormat.detectarVersion(inputFileName);
+            switch (version) {
+                case HuffmanFormat.VERSION_ASCII -> decodeAscii();
+                case HuffmanFormat.VERSION_FRECUENCIAS -> decodeFrecuencias();
+                case HuffmanFormat.VERSION_CANONICA -> decodeCanonico(true);
+                case HuffmanFormat.VERSION_BLOQUES -> decodeBloques(true);
+                case HuffmanFormat.VERSION_FLUJO -> decodeFlujo(true);
+                default -> throw new IOException("Versión de formato no soportada: " + version);
+            }
+            System.out.println("Descompresión exitosa...");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Comprueba que el archivo comprimido esté sano, descomprimiéndolo sin escribir el archivo de salida.
+     * <p>
+     * En los archivos por bloques se comprueba el CRC32C de cada bloque ({@link HuffmanFormat#FLAG_CRC}), todos en
+     * paralelo en el pool (ver {@link #setPool(ForkJoinPool)}), por lo que se puede revisar un archivo grande
+     * rápidamente con muchos núcleos; en los contenedores ({@link HuffmanArchive}) se revisan las entradas en
+     * paralelo. En los archivos sin CRC sólo se comprueba que los códigos sean válidos y que el archivo no esté
+     * truncado.
+     * </p>
+     *
+     * @throws IOException Si el archivo está dañado (el mensaje indica el bloque), truncado o su formato no se puede
+     *                     verificar.
+     */
+    public void verify() throws IOException {
+        if (new File(inputFileName).length() > 0) {
+            int version = HuffmanFormat.detectarVersion(inputFileName);
+            switch (version) {
+                case HuffmanFormat.VERSION_CANONICA -> decodeCanonico(false);
+                case HuffmanFormat.VERSION_BLOQUES -> decodeBloques(false);
+                case HuffmanFormat.VERSION_FLUJO -> decodeFlujo(false);
+                case HuffmanFormat.VERSION_ARCHIVO -> HuffmanArchive.abrir(inputFileName).verificar(pool);
+                default -> throw new IOException("La versión " + version + " no se puede verificar");
+            }
+        }
+        System.out.println("Verificación exitosa...");
+    }
+
+    /**
+     * Descomprime sólo un rango de los datos originales, sin escribir el archivo de salida.
+     * <p>
+     * En los archivos con código canónico escritos con índice ({@link HuffmanEncoder#setIntervaloIndice(int)}) se
+     * salta al punto de control anterior al rango y se decodifica desde ahí; sin índice se decodifica desde el
+     * comienzo. Los datos guardados sin codificar ({@link HuffmanFormat#FLAG_CRUDO}) se leen directamente en su
+     * posición. En los archivos por bloques se descomprimen sólo los bloques que cubren el rango, y en los de flujo
+     * se descomprimen los bloques anteriores sin guardarlos.
+     * </p>
+     *
+     * @param offset Posición del primer byte del rango en los datos originales.
+     * @param length Cantidad de bytes del rango.
+     * @return Los bytes del rango; menos de {@code length} si el rango pasa del final de los datos.
+     * @throws IOException              Si ocurre un error de lectura, el archivo está dañado o su formato no permite
+     *                                  leer un rango.
+     * @throws IllegalArgumentException Si {@code offset} o {@code length} son negativos.
+     */
+    public byte[] decodeRange(long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) throw new IllegalArgumentException("rango inválido: " + offset + ", " + length);
+        if (new File(inputFileName).length() == 0) return new byte[0]; // igual que decode(): datos vacíos
+        int version = HuffmanFormat.detectarVersion(inputFileName);
+        return switch (version) {
+            case HuffmanFormat.VERSION_CANONICA -> rangoCanonico(offset, length);
+            case HuffmanFormat.VERSION_BLOQUES -> rangoBloques(offset, length);
+            case HuffmanFormat.VERSION_FLUJO -> {
+                try (InputStream entrada = new HuffmanInputStream(
+                        new BufferedInputStream(new FileInputStream(inputFileName)))) {
+                    entrada.skipNBytes(offset);
+                    yield entrada.readNBytes(length);
+                } catch (EOFException e) {
+                    yield new byte[0];
+                }
+            }
+            default -> throw new IOException("La versión " + version + " no permite descomprimir un rango");
+        };
+    }
+
+    /**
+     * Rango de un archivo {@link HuffmanFormat#VERSION_CANONICA}, usando el índice de puntos de control si existe.
+     */
+    private byte[] rangoCanonico(long offset, int length) throws IOException {
+        try (MappedBitReader reader = new MappedBitReader(inputFileName)) {
+            int flags = HuffmanFormat.leerCabecera(reader)[1];
+            if ((flags & HuffmanFormat.FLAG_ADAPTATIVO) != 0) { // sin índice ni largo: se decodifica desde el comienzo
+                AdaptiveHuffmanTree arbol = new AdaptiveHuffmanTree();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                int s;
+                for (long i = 0; i < offset + length; i++) {
+                    if ((s = arbol.decodificar(reader)) == AdaptiveHuffmanTree.FIN) break;
+                    if (i >= offset) out.write(s);
+                }
+                return out.toByteArray();
+            }
+            if ((flags & HuffmanFormat.FLAG_CRUDO) != 0) { // cada byte original está en una posición conocida
+                long largoOriginal = reader.nextLong();
+                int modo = leerModoCrudo(reader);
+                byte[] out = new byte[(int) Math.max(0, Math.min(length, largoOriginal - offset))];
+                if (modo == HuffmanBlock.MODO_CONSTANTE) {
+                    Arrays.fill(out, reader.nextByte());
+                } else if (out.length > 0) {
+                    reader.seek(reader.position() + offset * Byte.SIZE);
+                    reader.nextBytes(out, 0, out.length);
+                }
+                return out;
+            }
+            if ((flags & HuffmanFormat.FLAG_CONTEXTO) != 0) { // sin índice: se decodifica desde el comienzo
+                long largoOriginal = reader.nextLong();
+                ContextHuffmanCode contexto = ContextHuffmanCode.leer(reader);
+                byte[] out = new byte[(int) Math.max(0, Math.min(length, largoOriginal - offset))];
+                int anterior = 0;
+                for (long i = 0; i < offset + out.length; i++) {
+                    anterior = contexto.decodeSymbol(reader, anterior);
+                    if (i >= offset) out[(int) (i - offset)] = (byte) anterior;
+                }
+                return out;
+            }
+            HuffmanDictionary diccionario = leerDiccionario(reader, flags);
+            long largoOriginal = reader.nextLong();
+            HuffmanDecodeTable tabla = diccionario != null ? diccionario.tabla() : leerTabla(reader);
+            byte[] out = new byte[(int) Math.max(0, Math.min(length, largoOriginal - offset))];
+            if (out.length == 0) return out;
+
+            long desde = 0; // byte original cuyo código comienza en la posición del lector
+            if ((flags & HuffmanFormat.FLAG_INDICE) != 0) {
+                long inicioDatos = reader.position();
+                reader.seek((reader.length() - Long.BYTES) * Byte.SIZE);
+                long posicionIndice = reader.nextLong();
+                if (posicionIndice < 0 || posicionIndice > reader.length() - Long.BYTES - 2 * Integer.BYTES) {
+                    throw new IOException("Posición de índice inválida: " + posicionIndice);
+                }
+                reader.seek(posicionIndice * Byte.SIZE);
+                int intervalo = (int) reader.peekBits(Integer.SIZE);
+                reader.skipBits(Integer.SIZE);
+                int cantidad = (int) reader.peekBits(Integer.SIZE);
+                reader.skipBits(Integer.SIZE);
+                if (intervalo <= 0 || cantidad <= 0
+                        || (long) cantidad * Long.BYTES != reader.length() - Long.BYTES - posicionIndice - 8) {
+                    throw new IOException("Índice de puntos de control inválido");
+                }
+                int k = (int) Math.min(offset / intervalo, cantidad - 1);
+                reader.seek((posicionIndice + 2 * Integer.BYTES + (long) k * Long.BYTES) * Byte.SIZE);
+                long punto = reader.nextLong();
+                if (punto < inicioDatos || punto > posicionIndice * Byte.SIZE) {
+                    throw new IOException("Punto de control inválido: " + punto);
+                }
+                reader.seek(punto);
+                desde = (long) k * intervalo;
+            }
+            for (long i = desde; i < offset; i++) tabla.decodeSymbol(reader); // hasta el comienzo del rango
+            for (int i = 0; i < out.length; i++) out[i] = (byte) tabla.decodeSymbol(reader);
+            return out;
+        }
+    }
+
+    /**
+     * Rango de un archivo {@link HuffmanFormat#VERSION_BLOQUES}: todos los bloques salvo el último tienen el tamaño
+     * de la cabecera, así que el primer bloque del rango se calcula sin recorrer el índice.
+     */
+    private byte[] rangoBloques(long offset, int length) throws IOException {
+        try (FileChannel entrada = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ)) {
+            long largoArchivo = entrada.size();
+            if (largoArchivo < 5 + Integer.BYTES + Long.BYTES) throw new EOFException("Archivo truncado");
+            ByteBuffer cabecera = ByteBuffer.allocate(5 + Integer.BYTES);
+            HuffmanFormat.leerEn(entrada, cabecera, 0);
+            int flags = cabecera.get(4) & 0xFF;
+            int tamanoBloque = cabecera.getInt(5);
+            ByteBuffer fin = ByteBuffer.allocate(Long.BYTES);
+            HuffmanFormat.leerEn(entrada, fin, largoArchivo - Long.BYTES);
+            long posicionIndice = fin.getLong(0);
+            if (tamanoBloque < 1 || posicionIndice < 0 || posicionIndice > largoArchivo - Long.BYTES - Integer.BYTES) {
+                throw new IOException("Índice de bloques inválido");
+            }
+            ByteBuffer cantidad = ByteBuffer.allocate(Integer.BYTES);
+            HuffmanFormat.leerEn(entrada, cantidad, posicionIndice);
+            int cantidadBloques = cantidad.getInt(0);
+            if (cantidadBloques < 0 || largoArchivo - Long.BYTES - posicionIndice - Integer.BYTES
+                    != (long) cantidadBloques * (Long.BYTES + Integer.BYTES)) {
+                throw new IOException("Índice de bloques inválido");
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(length, tamanoBloque));
+            long hasta = offset + length;
+            for (long b = offset / tamanoBloque; b < cantidadBloques && b * tamanoBloque < hasta; b++) {
+                // entrada b del índice y posición del bloque siguiente (o del índice, si es el último)
+                ByteBuffer entradaIndice = ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES);
+                entradaIndice.limit(b + 1 < cantidadBloques ? entradaIndice.capacity() : Long.BYTES + Integer.BYTES);
+                HuffmanFormat.leerEn(entrada, entradaIndice,
+                        posicionIndice + Integer.BYTES + b * (Long.BYTES + Integer.BYTES));
+                long posicionBloque = entradaIndice.getLong(0);
+                long siguiente = b + 1 < cantidadBloques ? entradaIndice.getLong(Long.BYTES + Integer.BYTES)
+                        : posicionIndice;
+                if (posicionBloque < 0 || siguiente < posicionBloque) {
+                    throw new IOException("Índice de bloques inválido");
+                }
+                byte[] datos;
+                try (BitReader reader = new MappedBitReader(entrada, posicionBloque, siguiente - posicionBloque)) {
+                    if (reader.peekBits(Integer.SIZE) > tamanoBloque) throw new IOException("Largo de bloque inválido");
+                    datos = HuffmanBlock.descomprimir(reader, cache, flags);
+                }
+                long inicioBloque = b * tamanoBloque;
+                int desde = (int) Math.max(0, offset - inicioBloque);
+                int hastaBloque = (int) Math.min(datos.length, hasta - inicioBloque);
+                if (hastaBloque > desde) out.write(datos, desde, hastaBloque - desde);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Decodifica un archivo en formato {@link HuffmanFormat#VERSION_FLUJO} (escrito con {@link HuffmanOutputStream}).
+     *
+     * @param escribir false para sólo comprobar los datos, sin escribir el archivo de salida.
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado o dañado.
+     */
+    private void decodeFlujo(boolean escribir) throws IOException {
+        try (InputStream entrada = new HuffmanInputStream(new PrefetchInputStream(new FileInputStream(inputFileName)));
+             OutputStream salida = escribir ? abrirSalida() : OutputStream.nullOutputStream()) {
+            entrada.transferTo(salida);
+        }
+    }
+
+    /**
+     * Abre el archivo de salida con una etapa de escritura propia ({@link AsyncChannelWriter}), para que la
+     * decodificación no se detenga mientras el disco escribe.
+     *
+     * @return Flujo hacia el archivo de salida, que se crea o se trunca.
+     * @throws IOException Si el archivo no se puede crear.
+     */
+    private OutputStream abrirSalida() throws IOException {
+        return Channels.newOutputStream(new AsyncChannelWriter(FileChannel.open(Paths.get(outputFileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)));
+    }
+
+    /**
+     * Decodifica un archivo en formato {@link HuffmanFormat#VERSION_BLOQUES}: lee el índice del final del archivo y
+     * descomprime todos los bloques en paralelo, escribiendo cada uno directamente en su posición del archivo de
+     * salida.
+     *
+     * @param escribir false para sólo comprobar los bloques (su CRC, si lo tienen), sin escribir el archivo de salida.
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado o dañado.
+     */
+    private void decodeBloques(boolean escribir) throws IOException {
+        try (FileChannel entrada = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ);
+             FileChannel salida = !escribir ? null : FileChannel.open(Paths.get(outputFileName),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long largoArchivo = entrada.size();
+            if (largoArchivo < 5 + Integer.BYTES + Long.BYTES) throw new EOFException("Archivo truncado");
+
+            // Los flags de la cabecera indican el formato de los bloques
+            ByteBuffer cabecera = ByteBuffer.allocate(5 + Integer.BYTES);
+            HuffmanFormat.leerEn(entrada, cabecera, 0);
+            final int flags = cabecera.get(4) & 0xFF;
+            int tamanoBloque = cabecera.getInt(5);
+
+            // La posición del índice está en los últimos 8 bytes
+            ByteBuffer fin = ByteBuffer.allocate(Long.BYTES);
+            HuffmanFormat.leerEn(entrada, fin, largoArchivo - Long.BYTES);
+            long posicionIndice = fin.getLong(0);
+            if (posicionIndice < 0 || posicionIndice > largoArchivo - Long.BYTES - Integer.BYTES) {
+                throw new IOException("Posición de índice inválida: " + posicionIndice);
+            }
+            ByteBuffer indice = ByteBuffer.allocate((int) (largoArchivo - Long.BYTES - posicionIndice));
+            HuffmanFormat.leerEn(entrada, indice, posicionIndice);
+            indice.flip();
+            int cantidadBloques = indice.getInt();
+            if (cantidadBloques < 0 || indice.remaining() != (long) cantidadBloques * (Long.BYTES + Integer.BYTES)) {
+                throw new IOException("Índice de bloques inválido");
+            }
+
+            long[] posiciones = new long[cantidadBloques + 1]; // el último bloque termina donde comienza el índice
+            int[] largos = new int[cantidadBloques];
+            for (int b = 0; b < cantidadBloques; b++) {
+                posiciones[b] = indice.getLong();
+                largos[b] = indice.getInt();
+            }
+            posiciones[cantidadBloques] = posicionIndice;
+            for (int b = 0; b < cantidadBloques; b++) { // antes de lanzar tareas, que no deben quedar leyendo
+                if (posiciones[b] < 0 || posiciones[b + 1] < posiciones[b]
+                        || largos[b] < 0 || largos[b] > tamanoBloque) {
+                    throw new IOException("Índice de bloques inválido");
+                }
+            }
+
+            List<ForkJoinTask<?>> tareas = new ArrayList<>(cantidadBloques);
+            long posicionSalida = 0;
+            for (int b = 0; b < cantidadBloques; b++) {
+                final long posicionBloque = posiciones[b];
+                final long largoComprimido = posiciones[b + 1] - posiciones[b];
+                final int numero = b;
+                final int largoBloque = largos[b];
+                final long destino = posicionSalida;
+                tareas.add(pool.submit(() -> descomprimirBloque(numero, entrada, posicionBloque, largoComprimido,
+                        largoBloque, salida, destino, cache, flags)));
+                posicionSalida += largoBloque;
+            }
+            unirTodas(tareas);
+        }
+    }
+
+    /**
+     * Espera a que terminen todas las tareas. Si alguna falla, igual espera a las demás antes de lanzar el error,
+     * para que ninguna siga leyendo los archivos después de cerrarlos: {@link ForkJoinTask#cancel} da por terminada
+     * una tarea que ya se está ejecutando, sin detenerla, así que cancelarlas no basta.
+     *
+     * @param tareas Tareas que lanzan {@link UncheckedIOException} si fallan.
+     * @throws IOException El primer error de las tareas.
+     */
+    static void unirTodas(List<ForkJoinTask<?>> tareas) throws IOException {
+        RuntimeException error = null;
+        for (ForkJoinTask<?> tarea : tareas) {
+            if (error != null) {
+                tarea.quietlyJoin();
+                continue;
+            }
+            try {
+                tarea.join();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        if (error instanceof UncheckedIOException) throw ((UncheckedIOException) error).getCause();
+        if (error != null) throw error;
+    }
+
+    /**
+     * Descomprime un bloque y lo escribe en su posición del archivo de salida (si {@code salida} no es null). Se
+     * ejecuta en un hilo del pool.
+     */
+    private static void descomprimirBloque(int numero, FileChannel entrada, long posicionBloque,
+                                           long largoComprimido, int largoBloque, FileChannel salida, long destino,
+                                           HuffmanTableCache cache, int flags) {
+        try (BitReader reader = new MappedBitReader(entrada, posicionBloque, largoComprimido)) {
+            if (reader.peekBits(Integer.SIZE) != largoBloque) { // antes de reservar memoria para el bloque
+                throw new IOException("Largo de bloque no coincide con el índice");
+            }
+            byte[] datos = HuffmanBlock.descomprimir(reader, cache, flags);
+            if (salida != null) HuffmanFormat.escribirEn(salida, ByteBuffer.wrap(datos), destino);
+        } catch (IOException e) {
+            throw new UncheckedIOException(new IOException("Bloque " + numero + ": " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Decodifica un archivo en formato {@link HuffmanFormat#VERSION_CANONICA}: lee los largos de código,
+     * reconstruye las tablas del código canónico y decodifica hasta completar el largo original, con tabla o
+     * bit a bit según {@link #setUsarTabla(boolean)}. La salida se escribe en su propia etapa
+     * ({@link #abrirSalida()}); la entrada está proyectada en memoria y el sistema operativo la lee por adelantado.
+     *
+     * @param escribir false para sólo comprobar los códigos, sin escribir el archivo de salida.
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado o dañado.
+     */
+    private void decodeCanonico(boolean escribir) throws IOException {
+        try (MappedBitReader reader = new MappedBitReader(inputFileName);
+             OutputStream outputStream = escribir ? new BufferedOutputStream(abrirSalida())
+                     : OutputStream.nullOutputStream()) {
+            int flags = HuffmanFormat.leerCabecera(reader)[1];
+            if ((flags & HuffmanFormat.FLAG_ADAPTATIVO) != 0) { // sin tabla: el árbol se reconstruye mientras se lee
+                AdaptiveHuffmanTree.descomprimir(reader, outputStream);
+                return;
+            }
+            if ((flags & HuffmanFormat.FLAG_CONTEXTO) != 0) { // una tabla por byte anterior
+                decodeContexto(reader, outputStream);
+                return;
+            }
+            if ((flags & HuffmanFormat.FLAG_CRUDO) != 0) { // sin código: se copia o se rellena
+                decodeCrudo(reader, outputStream);
+                return;
+            }
+            HuffmanDictionary diccionario = leerDiccionario(reader, flags);
+            long largoOriginal = reader.nextLong(); // Cantidad de bytes a decodificar
+            HuffmanDecodeTable tabla = diccionario != null ? diccionario.tabla() : leerTabla(reader);
+            CanonicalCode codigo = tabla.codigo;
+
+            // Cada byte ocupa al menos el código más corto: un largo mayor sólo puede venir de un archivo dañado
+            int masCorto = CanonicalCode.MAX_LARGO;
+            for (byte largo : codigo.largos) {
+                if (largo != 0) masCorto = Math.min(masCorto, largo);
+            }
+            if (largoOriginal < 0 || largoOriginal > (reader.length() * Byte.SIZE - reader.position()) / masCorto) {
+                throw new IOException("Archivo truncado o dañado: largo original " + largoOriginal);
+            }
+            if (usarTabla) {
+                for (long i = 0; i < largoOriginal; i++) {
+                    outputStream.write(tabla.decodeSymbol(reader));
+                }
+            } else {
+                HuffmanIterator iterator = codigo.getIterator();
+                for (long i = 0; i < largoOriginal; i++) {
+                    iterator.reset();
+                    while (!iterator.isLeaf()) {
+                        iterator.forward(reader.nextBit());
+                    }
+                    outputStream.write(iterator.getValue());
+                }
+            }
+            if (reader.position() > reader.length() * Byte.SIZE) throw new EOFException("Archivo truncado");
+        }
+    }
+
+    /**
+     * Decodifica los datos de un archivo con {@link HuffmanFormat#FLAG_CONTEXTO}: cada byte con la tabla del byte
+     * anterior. Siempre se decodifica con tablas, sin importar {@link #setUsarTabla(boolean)}.
+     *
+     * @param reader Lector posicionado después de la cabecera.
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado o dañado.
+     */
+    private void decodeContexto(MappedBitReader reader, OutputStream outputStream) throws IOException {
+        long largoOriginal = reader.nextLong();
+        ContextHuffmanCode contexto = ContextHuffmanCode.leer(reader);
+        if (largoOriginal < 0
+                || largoOriginal > (reader.length() * Byte.SIZE - reader.position()) / contexto.largoMinimo()) {
+            throw new IOException("Archivo truncado o dañado: largo original " + largoOriginal);
+        }
+        int anterior = 0;
+        for (long i = 0; i < largoOriginal; i++) {
+            anterior = contexto.decodeSymbol(reader, anterior);
+            outputStream.write(anterior);
+        }
+        if (reader.position() > reader.length() * Byte.SIZE) throw new EOFException("Archivo truncado");
+    }
+
+    /**
+     * Copia los datos de un archivo con {@link HuffmanFormat#FLAG_CRUDO}: los bytes originales de a tramos, o el
+     * único byte repetido hasta completar el largo original.
+     *
+     * @param reader Lector posicionado después de la cabecera.
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado o dañado.
+     */
+    private void decodeCrudo(MappedBitReader reader, OutputStream outputStream) throws IOException {
+        long largoOriginal = reader.nextLong();
+        int modo = leerModoCrudo(reader);
+        long disponibles = modo == HuffmanBlock.MODO_CRUDO ? reader.length() - reader.position() / Byte.SIZE
+                : Long.MAX_VALUE;
+        if (largoOriginal < 0 || largoOriginal > disponibles) {
+            throw new IOException("Archivo truncado o dañado: largo original " + largoOriginal);
+        }
+        byte[] tramo = new byte[(int) Math.min(largoOriginal, 64 * 1024)];
+        if (modo == HuffmanBlock.MODO_CONSTANTE) Arrays.fill(tramo, reader.nextByte());
+        for (long restantes = largoOriginal; restantes > 0; ) {
+            int n = (int) Math.min(restantes, tramo.length);
+            if (modo == HuffmanBlock.MODO_CRUDO) reader.nextBytes(tramo, 0, n);
+            outputStream.write(tramo, 0, n);
+            restantes -= n;
+        }
+    }
+
+    /**
+     * Lee el byte de modo de un archivo con {@link HuffmanFormat#FLAG_CRUDO}.
+     *
+     * @return {@link HuffmanBlock#MODO_CRUDO} o {@link HuffmanBlock#MODO_CONSTANTE}.
+     * @throws IOException Si el modo es otro.
+     */
+    private static int leerModoCrudo(BitReader reader) throws IOException {
+        int modo = reader.nextByte();
+        if (modo != HuffmanBlock.MODO_CRUDO && modo != HuffmanBlock.MODO_CONSTANTE) {
+            throw new IOException("Modo inválido: " + modo);
+        }
+        return modo;
+    }
+
+    /**
+     * Si el archivo se comprimió con un diccionario, lee su identificador y checksum y busca el diccionario.
+     *
+     * @return El diccionario, o null si el archivo trae su propia tabla.
+     * @throws IOException Si el diccionario no se agregó o no coincide con el usado al comprimir.
+     */
+    private HuffmanDictionary leerDiccionario(BitReader reader, int flags) throws IOException {
+        if ((flags & HuffmanFormat.FLAG_DICCIONARIO) == 0) return null;
+        int id = (int) reader.peekBits(Integer.SIZE);
+        reader.skipBits(Integer.SIZE);
+        int checksum = (int) reader.peekBits(Integer.SIZE);
+        reader.skipBits(Integer.SIZE);
+        HuffmanDictionary diccionario = diccionarios.get(id);
+        if (diccionario == null) throw new IOException("Diccionario desconocido: " + id);
+        if (diccionario.checksum != checksum) throw new IOException("El diccionario " + id + " no coincide");
+        return diccionario;
+    }
+
+    /**
+     * Lee la tabla de largos y entrega su tabla de decodificación, construyéndola sólo si no está en el caché.
+     */
+    private HuffmanDecodeTable leerTabla(BitReader reader) throws IOException {
+        try {
+            return cache.obtener(HuffmanFormat.leerLargos(reader)); // Sólo arreglos, sin árbol
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Tabla de largos inválida", e);
+        }
+    }
+
+    /**
+     * Decodifica un archivo en formato {@link HuffmanFormat#VERSION_FRECUENCIAS}: lee las frecuencias, reconstruye el
+     * árbol y recorre los bits empaquetados hasta completar el largo original.
+     *
+     * @throws IOException Si ocurre un error de lectura o el archivo está truncado.
+     */
+    private void decodeFrecuencias() throws IOException {
+        try (BitReader reader = new MappedBitReader(inputFileName);
+             BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFileName))) {
+            HuffmanFormat.leerCabecera(reader);
+            long largoOriginal = reader.nextLong(); // Cantidad de bytes a decodificar
+
+            long[] diccionario = new long[256]; // frecuencias de cada byte
+            for (int i = 0; i < diccionario.length; i++) {
+                diccionario[i] = reader.nextLong();
+            }
+
+            HuffmanTree arbol = HuffmanTree.of(diccionario); // Mismo árbol que construyó el codificador
+            HuffmanIterator iterator = arbol.getIterator();
+            for (long i = 0; i < largoOriginal; i++) {
+                iterator.reset(); // Cada código comienza en la raiz
+                while (!iterator.isLeaf()) {
+                    iterator.forward(reader.nextBit()); // 1: hijo derecho, 0: hijo izquierdo
+                }
+                outputStream.write(iterator.getValue());
+            }
+        }
+    }
+
+    /**
+     * Decodifica un archivo en el formato ASCII original, donde cada bit está escrito como un caracter '0' o '1'.
+     *
+     * @throws IOException Si ocurre un error de lectura en el archivo.
+     */
+    private void decodeAscii() throws IOException {
+        // Se abre el archivo para lectura por byte
+        try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(inputFileName)); // Abre el archivo comprimido
+             BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFileName))) { // Abre el archivo descomprimido
+            // Hay que leer el diccionario de 256 long
+            long[] diccionario = new long[256]; // frecuencias de cada caracter
+            int contador = 0; // Cuenta hasta 8
+            StringBuilder stringBuilder = new StringBuilder();
+
+            for (int i = 0; i < 256; i++) { // leer 256 caracteres (lee todo el diccionario)
+                while (contador < 8) { // juntar 8 bits, transformarlos en long e insertarlos en diccionario[]
+                    // Si entra aqui es porque se está armando el long
+                    char lectura = (char) inputStream.read(); // Obtiene un caracter secuencialmente
+                    stringBuilder.append(lectura); // Se concatena el caracter leído
+                    contador++;
+                }
+                // Para llegar hasta aca, se juntaron 8 bits. Ahora, con ello se arma un long y se guarda en la posición i (código del caracter)
+                diccionario[i] = Long.parseLong(stringBuilder.toString(), 2); // convertir binario a long
+                stringBuilder.setLength(0); // resetear el StringBuilder, para armar una nueva secuencia
+                contador = 0; // resetear el contador para volver a juntar 8 bits
+            }
+            inputStream.read(); // Como se leyó todo el diccionario, agregamos esta linea para liberar "|"
+
+            // Hay que leer el total de bits (importante para no leer basura)
+            int totalBits = 0;
+            for (int i = 0; i < 32; i++) { // leer 32 bits
+                totalBits <<= 1;
+                totalBits |= inputStream.read() & 1; // construir totalBits a partir de los bits leídos
+            }
+            inputStream.read(); // Despeja la lectura sacando | del texto
+
+            // Hay que crear un árbol de Huffman para descomprimir.
+            HuffmanTree arbol = HuffmanTree.of(diccionario); // Arbol a partir del diccionario (frecuencias leídas)
+            HuffmanIterator iterator = arbol.getIterator(); // Obtener un iterador para recorrer el árbol
+
+            // Hay que decodificar el archivo usando el árbol. recorrer el árbol con el iterador. al llegar una hoja, append el carácter
+            stringBuilder.delete(0, stringBuilder.length()); // limpiamos el stringbuilder para no declarar otro (reciclaje de la variable)
+            int read = 0; // Captura la lectura secuencial del código Huffman
+
+            while (read > -1) { // Lee hasta el último código Huffman
+                if (iterator.isLeaf()) { // Si llegamos a una hoja
+                    stringBuilder.append((char) iterator.getValue()); // Rescatamos el byte y lo interpretamos como caracter
+                    outputStream.write((char) iterator.getValue()); // Escribimos el carácter en el archivo de salida
+                    iterator.reset(); // volver a la raiz (nodo actual = raiz del arbol). Reestablecemos la ruta iniciando en la raiz
+                } else { // Si el nodo del arbol no es una hoja (es una suma de frecuencias), significa que tenemos que bajar al hijo izquierdo o derecho
+                    read = inputStream.read(); // Obtenemos la instrucción (0 o 1)
+                    if (read == 48) { // Si obtenemos un 0 en la lectura, bajamos al hijo izquierdo (0 en ASCII es 48)
+                        // bajar a la izquierda
+                        iterator.forward(false); // Establece como nodo actual el hijo izquierdo del nodo actual
+                    } else { // Si obtenemos un 1 en la lectura, bajamos al hijo derecho
+                        // bajar a la derecha
+                        iterator.forward(true); // Establece como nodo actual el hijo derecho del nodo actual
+                    }
+                }
+            }
+        }
+    }
+}
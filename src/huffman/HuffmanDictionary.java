@@ -0,0 +1,152 @@
+package huffman;
+
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * Diccionario de Huffman: un código canónico entrenado una vez con archivos de muestra y compartido por muchos
+ * archivos comprimidos.
+ * <p>
+ * Con archivos pequeños y parecidos (registros JSON, líneas de log) la tabla de cada archivo y la pasada para contar
+ * sus frecuencias cuestan más de lo que ahorran. Con un diccionario el archivo comprimido sólo guarda su
+ * identificador y su checksum (ver {@link HuffmanFormat#FLAG_DICCIONARIO}); el decodificador tiene que conocer el
+ * mismo diccionario.
+ * </p>
+ * <p>
+ * Formato del archivo de diccionario:
+ * </p>
+ * <pre>
+ * byte[3] 'H' 'U' 'D' | byte versión | int id | byte[256] largo del código de cada byte
+ * </pre>
+ */
+public class HuffmanDictionary {
+
+    /** Versión del formato del archivo de diccionario. */
+    static final int VERSION = 1;
+
+    /** Identificador del diccionario, elegido por quien lo entrena. */
+    final int id;
+
+    /** Checksum (CRC32) de los largos, para detectar un diccionario distinto con el mismo identificador. */
+    final int checksum;
+
+    /** Código canónico del diccionario. */
+    final CanonicalCode codigo;
+
+    /** Tabla de decodificación, se construye la primera vez que se usa. */
+    private volatile HuffmanDecodeTable tabla;
+
+    /**
+     * @param id     Identificador del diccionario.
+     * @param largos Largo del código de cada uno de los 256 bytes, al menos 1: cualquier byte puede aparecer en los
+     *               archivos que se comprimen con el diccionario.
+     * @throws IllegalArgumentException Si algún byte no tiene código o los largos no forman un código prefijo.
+     */
+    public HuffmanDictionary(int id, byte[] largos) {
+        if (largos.length != 256) throw new IllegalArgumentException("se esperan 256 largos: " + largos.length);
+        for (int s = 0; s < largos.length; s++) {
+            if (largos[s] == 0) throw new IllegalArgumentException("el byte " + s + " no tiene código");
+        }
+        this.id = id;
+        this.codigo = new CanonicalCode(largos);
+        CRC32 crc = new CRC32();
+        crc.update(largos);
+        this.checksum = (int) crc.getValue();
+    }
+
+    /**
+     * Entrena un diccionario a partir de frecuencias. Los bytes que no aparecen reciben frecuencia 1, para que
+     * cualquier archivo se pueda comprimir con el diccionario.
+     *
+     * @param id          Identificador del diccionario.
+     * @param frecuencias Frecuencia de cada byte en las muestras.
+     * @return El diccionario entrenado.
+     */
+    public static HuffmanDictionary entrenar(int id, long[] frecuencias) {
+        long[] conPiso = new long[256];
+        for (int i = 0; i < 256; i++) {
+            conPiso[i] = Math.max(frecuencias[i], 1);
+        }
+        byte[] largos = new byte[256];
+        HuffmanTreeBuilder.porHilo().codeLengths(conPiso, largos);
+        return new HuffmanDictionary(id, largos);
+    }
+
+    /**
+     * Entrena un diccionario contando los bytes de archivos de muestra.
+     *
+     * @param id       Identificador del diccionario.
+     * @param muestras Rutas de los archivos de muestra.
+     * @return El diccionario entrenado.
+     * @throws IOException Si no se puede leer alguna muestra.
+     */
+    public static HuffmanDictionary entrenar(int id, String... muestras) throws IOException {
+        long[] frecuencias = new long[256];
+        byte[] bloque = new byte[64 * 1024];
+        for (String muestra : muestras) {
+            try (InputStream input = new FileInputStream(muestra)) {
+                int leidos;
+                while ((leidos = input.read(bloque)) != -1) {
+                    for (int i = 0; i < leidos; i++) frecuencias[bloque[i] & 0xFF]++;
+                }
+            }
+        }
+        return entrenar(id, frecuencias);
+    }
+
+    /**
+     * Guarda el diccionario en un archivo.
+     *
+     * @param fileName Ruta del archivo de diccionario.
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void guardar(String fileName) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            output.write(HuffmanFormat.MAGIC_DICCIONARIO);
+            output.writeByte(VERSION);
+            output.writeInt(id);
+            output.write(codigo.lengths());
+        }
+    }
+
+    /**
+     * Lee un diccionario guardado con {@link #guardar(String)}.
+     *
+     * @param fileName Ruta del archivo de diccionario.
+     * @return El diccionario.
+     * @throws IOException Si el archivo no es un diccionario válido.
+     */
+    public static HuffmanDictionary cargar(String fileName) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            for (byte b : HuffmanFormat.MAGIC_DICCIONARIO) {
+                if (input.readByte() != b) throw new IOException("No es un archivo de diccionario: " + fileName);
+            }
+            int version = input.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Versión de diccionario no soportada: " + version);
+            int id = input.readInt();
+            byte[] largos = new byte[256];
+            input.readFully(largos);
+            try {
+                return new HuffmanDictionary(id, largos);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Tabla de largos inválida", e);
+            }
+        }
+    }
+
+    /**
+     * @return El identificador del diccionario.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return La tabla de decodificación del diccionario, que se construye una sola vez y se comparte.
+     */
+    HuffmanDecodeTable tabla() {
+        HuffmanDecodeTable t = tabla;
+        if (t == null) tabla = t = new HuffmanDecodeTable(codigo);
+        return t;
+    }
+}
@@ -0,0 +1,679 @@
+package huffman;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase para codificar datos utilizando el algoritmo de Huffman.
+ * Esta clase proporciona funcionalidades para comprimir datos utilizando el algoritmo de Huffman.
+ * <p>
+ * La compresión se hace en dos pasadas por el archivo de entrada: una para contar las frecuencias y otra para
+ * emitir los códigos. Ninguna de las dos guarda el archivo en memoria, por lo que el uso de memoria no depende del
+ * tamaño de la entrada y se pueden comprimir archivos más grandes que la RAM. El uso de memoria se controla con
+ * {@code tamanoBuffer} (ver {@link #HuffmanEncoder(String, String, int)}): un buffer de lectura de tamanoBuffer
+ * en el heap, un {@code ByteBuffer} directo de tamanoBuffer fuera del heap para la salida ({@link ChannelBitWriter})
+ * y unos 10 KB de tablas, más los buffers de las etapas de lectura y escritura de {@link #encode()}.
+ * </p>
+ */
+public class HuffmanEncoder {
+
+    /** Tamaño por defecto de los buffers de lectura y escritura, en bytes. */
+    public static final int TAMANO_BUFFER_POR_DEFECTO = 64 * 1024;
+
+    /** Frecuencia que reciben los bytes que no aparecen en la muestra de {@link #setMuestra(int, int)}. */
+    static final long PISO_MUESTRA = 1;
+
+    /**
+     * Ruta al archivo de entrada.
+     */
+    private String inputFile;
+
+    /**
+     * Ruta al archivo de salida.
+     */
+    private String outputFile;
+
+    /**
+     * Tamaño en bytes del buffer de lectura y del buffer de bits de salida.
+     */
+    private int tamanoBuffer;
+
+    /**
+     * Largo máximo de un código de Huffman, 0 si no se limita.
+     */
+    private int largoMaximo = 0;
+
+    /**
+     * Cantidad de subflujos intercalados de cada bloque en {@link #encodeParalelo(int, ForkJoinPool)}.
+     */
+    private int subflujos = 1;
+
+    /**
+     * Si {@link #encodeParalelo(int, ForkJoinPool)} puede codificar las rachas de un byte repetido como un símbolo.
+     */
+    private boolean rachas = false;
+
+    /**
+     * Bytes originales entre dos puntos de control del índice que escribe {@link #encode()}, 0 si no se escribe.
+     */
+    private int intervaloIndice = 0;
+
+    /**
+     * Bytes de la muestra con que {@link #encode()} cuenta las frecuencias, 0 si cuenta toda la entrada.
+     */
+    private int muestra = 0;
+
+    /**
+     * Cantidad de tramos en que se reparte la muestra a lo largo de la entrada; con 1, la muestra es el comienzo.
+     */
+    private int tramosMuestra = 1;
+
+    /**
+     * Diccionario con el que se comprime, null si cada archivo lleva su propia tabla.
+     */
+    private HuffmanDictionary diccionario;
+
+    /**
+     * Bits que ocupó de más la última compresión por limitar el largo de los códigos.
+     */
+    private final LongAdder bitsPorLimite = new LongAdder();
+
+    /**
+     * Constructor de la clase HuffmanEncoder.
+     *
+     * @param inputFile  Ruta al archivo de entrada que se desea comprimir.
+     * @param outputFile Ruta al archivo de salida donde se almacenará la versión comprimida de los datos.
+     */
+
+    public HuffmanEncoder(String inputFile, String outputFile) {
+        this(inputFile, outputFile, TAMANO_BUFFER_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor de la clase HuffmanEncoder con un tamaño de buffer específico.
+     *
+     * @param inputFile    Ruta al archivo de entrada que se desea comprimir.
+     * @param outputFile   Ruta al archivo de salida donde se almacenará la versión comprimida de los datos.
+     * @param tamanoBuffer Tamaño en bytes de los buffers de lectura y escritura. La memoria usada al comprimir no
+     *                     depende del tamaño del archivo: {@link #encode()} usa unos 10 × tamanoBuffer
+     *                     ({@link PrefetchInputStream#BUFFERS} buffers de lectura en el heap,
+     *                     {@link AsyncChannelWriter#BUFFERS} buffers directos de escritura, el buffer de bits y el
+     *                     bloque que se codifica), más la muestra si {@link #setMuestra(int, int)} la toma de un solo
+     *                     tramo. {@link #encodeAdaptativo()} usa unos 2 × tamanoBuffer.
+     * @throws IllegalArgumentException Si el tamaño es menor a 8 bytes.
+     */
+    public HuffmanEncoder(String inputFile, String outputFile, int tamanoBuffer) {
+        if (tamanoBuffer < Long.BYTES) {
+            throw new IllegalArgumentException("tamaño de buffer fuera de rango: " + tamanoBuffer);
+        }
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.tamanoBuffer = tamanoBuffer;
+    }
+
+
+    /**
+     * Comprime con un diccionario entrenado ({@link HuffmanDictionary}) en vez de contar las frecuencias del archivo:
+     * se lee la entrada una sola vez y la cabecera sólo guarda el identificador y el checksum del diccionario, sin
+     * tabla. Conviene para muchos archivos pequeños y parecidos, en los que la tabla ocupa más de lo que ahorra.
+     *
+     * @param diccionario Diccionario a usar, o null para volver a construir una tabla por archivo.
+     */
+    public void setDiccionario(HuffmanDictionary diccionario) {
+        this.diccionario = diccionario;
+    }
+
+    /**
+     * Divide cada bloque de {@link #encodeParalelo(int, ForkJoinPool)} en subflujos intercalados (el byte i va al
+     * subflujo i % subflujos), cada uno con su propio lector al descomprimir. El decodificador avanza varias cadenas
+     * de búsquedas independientes a la vez en lugar de una sola, a cambio de 1 + 4 × subflujos bytes por bloque.
+     *
+     * @param subflujos Cantidad de subflujos, entre 1 (sin intercalar, el formato de siempre) y 255; 4 suele bastar.
+     * @throws IllegalArgumentException Si la cantidad está fuera de rango.
+     */
+    public void setSubflujos(int subflujos) {
+        if (subflujos < 1 || subflujos > 255) throw new IllegalArgumentException("subflujos inválidos: " + subflujos);
+        this.subflujos = subflujos;
+    }
+
+    /**
+     * Agrega a {@link #encodeParalelo(int, ForkJoinPool)} una etapa de rachas ({@link HuffmanFormat#FLAG_RACHAS}):
+     * cada bloque elige, según su histograma, si las rachas de un byte repetido se escriben como un solo símbolo con
+     * su largo. Con rachas largas (volcados binarios dispersos, registros rellenos con ceros) la salida puede bajar
+     * de un bit por byte y la compresión y descompresión son más rápidas; en los demás bloques no cambia nada salvo
+     * un byte de modo.
+     *
+     * @param rachas true para elegir el modo de cada bloque, false para codificar siempre byte a byte.
+     */
+    public void setRachas(boolean rachas) {
+        this.rachas = rachas;
+    }
+
+    /**
+     * Hace que {@link #encode()} escriba al final del archivo un índice con la posición en bits de cada
+     * {@code intervalo} bytes originales ({@link HuffmanFormat#FLAG_INDICE}). Con el índice,
+     * {@link HuffmanDecoder#decodeRange(long, int)} empieza a decodificar en el punto de control anterior al rango en
+     * vez de hacerlo desde el comienzo: a lo más decodifica {@code intervalo} bytes de más. El índice ocupa 8 bytes
+     * por punto de control (con 64 KB, 128 KB por GB original).
+     *
+     * @param intervalo Bytes originales entre puntos de control, o 0 para no escribir el índice.
+     * @throws IllegalArgumentException Si el intervalo es negativo.
+     */
+    public void setIntervaloIndice(int intervalo) {
+        if (intervalo < 0) throw new IllegalArgumentException("intervalo negativo: " + intervalo);
+        this.intervaloIndice = intervalo;
+    }
+
+    /**
+     * Hace que {@link #encode()} construya la tabla con una muestra de la entrada en vez de recorrerla entera antes
+     * de codificar, para leer la entrada una sola vez en discos lentos o montados por red.
+     * <p>
+     * Con un tramo, la muestra son los primeros {@code bytes} de la entrada: se cuentan, se codifican desde memoria
+     * (que se suma a la del buffer) y el resto se lee una sola vez mientras se codifica. Con más tramos, la muestra se
+     * reparte en {@code tramos} lecturas de {@code bytes / tramos} bytes espaciadas a lo largo del archivo, que
+     * representan mejor los archivos cuyo contenido cambia, a cambio de leer dos veces sólo esos tramos. Los bytes
+     * que no aparecen en la muestra reciben la frecuencia {@link #PISO_MUESTRA}, así que todo byte tiene código
+     * aunque sea largo. Si la muestra no representa bien la entrada, la salida ocupa algo más que con las
+     * frecuencias exactas.
+     * </p>
+     *
+     * @param bytes  Bytes de la muestra, o 0 para contar las frecuencias de toda la entrada.
+     * @param tramos Cantidad de tramos en que se reparte la muestra, entre 1 y {@code bytes}.
+     * @throws IllegalArgumentException Si los bytes son negativos o la cantidad de tramos está fuera de rango.
+     */
+    public void setMuestra(int bytes, int tramos) {
+        if (bytes < 0) throw new IllegalArgumentException("muestra negativa: " + bytes);
+        if (tramos < 1 || (bytes > 0 && tramos > bytes)) {
+            throw new IllegalArgumentException("cantidad de tramos fuera de rango: " + tramos);
+        }
+        this.muestra = bytes;
+        this.tramosMuestra = tramos;
+    }
+
+    /**
+     * Limita el largo de los códigos de Huffman. Con códigos acotados las tablas de decodificación son pequeñas
+     * (por ejemplo 12 bits: cabe en caché L1) y los códigos caben siempre en un registro. Cuando el árbol de
+     * Huffman supera el límite, los largos se recalculan con package-merge; lo que se pierde en compresión se
+     * informa al terminar y se puede consultar con {@link #getBitsPorLimite()}.
+     *
+     * @param largoMaximo Largo máximo en bits (por ejemplo 12, 15 o 24), entre 8 y 64, o 0 para no limitarlo. Con
+     *                    rachas ({@link #setRachas(boolean)}) un bloque puede tener más de 256 símbolos; si no caben
+     *                    en el límite, ese bloque usa los bits justos para distinguirlos.
+     * @throws IllegalArgumentException Si el largo está fuera de rango (con menos de 8 bits no caben 256 códigos).
+     */
+    public void setLargoMaximo(int largoMaximo) {
+        if (largoMaximo != 0 && (largoMaximo < 8 || largoMaximo > CanonicalCode.MAX_LARGO)) {
+            throw new IllegalArgumentException("largo máximo fuera de rango: " + largoMaximo);
+        }
+        this.largoMaximo = largoMaximo;
+    }
+
+    /**
+     * @return Los bits que ocupó de más la última compresión por limitar el largo de los códigos (0 si no se
+     * limitó o el límite no afectó a ningún código).
+     */
+    public long getBitsPorLimite() {
+        return bitsPorLimite.sum();
+    }
+
+    /**
+     * Informa por consola cuánto se perdió en compresión por limitar el largo de los códigos.
+     */
+    private void informarLimite(long bitsComprimidos) {
+        long extra = bitsPorLimite.sum();
+        if (extra == 0) return;
+        System.out.printf("Códigos limitados a %d bits: %d bytes más (%.3f%%)%n",
+                largoMaximo, (extra + 7) / 8, 100.0 * extra / Math.max(1, bitsComprimidos - extra));
+    }
+
+    /**
+     * lee el archivo de entrada y lo comprime usando Huffman, en el archivo de salida.
+     * formato archivo de salida (ver {@link HuffmanFormat}):
+     * cabecera|long largo_original|tabla de largos de código|bits archivo comprimido (empaquetados)...
+     * <p>Con un diccionario ({@link #setDiccionario}) la tabla se reemplaza por el identificador y el checksum del
+     * diccionario, y no se cuentan las frecuencias.</p>
+     * <p>La lectura, la codificación y la escritura son etapas en hilos distintos: {@link PrefetchInputStream} lee
+     * los buffers siguientes mientras se codifica el actual, y los códigos se acumulan en un buffer de bits de tamaño
+     * fijo que, cada vez que se llena, se entrega a {@link AsyncChannelWriter} para que lo escriba mientras se sigue
+     * codificando. Cada etapa usa {@link PrefetchInputStream#BUFFERS} buffers de {@code tamanoBuffer} bytes.</p>
+     * <p>Con {@link #setIntervaloIndice(int)} se agrega al final un índice de puntos de control.</p>
+     * <p>Si el histograma muestra que Huffman ahorraría menos de {@link HuffmanBlock#GANANCIA_MINIMA}, o que hay un
+     * solo byte distinto, los datos se guardan sin codificar ({@link HuffmanFormat#FLAG_CRUDO}) y no se construye el
+     * código; en ese caso no hace falta índice, porque cada byte está en una posición conocida.</p>
+     * <p>Con {@link #setMuestra(int, int)} las frecuencias se cuentan en una muestra y no en toda la entrada.</p>
+     */
+    public void encode() {
+        try (PrefetchInputStream etapaLectura = new PrefetchInputStream(new FileInputStream(inputFile), tamanoBuffer, // Etapa de lectura
+                PrefetchInputStream.BUFFERS);
+             ChannelBitWriter writer = new ChannelBitWriter(new AsyncChannelWriter(FileChannel.open(Paths.get(outputFile), // Etapa de escritura
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), tamanoBuffer,
+                     AsyncChannelWriter.BUFFERS), tamanoBuffer)) {
+            InputStream inputStream = etapaLectura; // con una muestra inicial, primero se leen los bytes ya contados
+            if(new File(inputFile).length() == 0){ // Verifica si el archivo está vacío. Así se evita avanzar a las siguientes líneas y provocar el fin del programa con errores
+                File archivo = new File(inputFile); // Se crea un objeto de la clase File para escribir el nombre del archivo en consola
+                System.out.println(archivo.getName()+" está vacío. Ingrese texto para codificarlo"); // Se informa por consola que el archivo está vacío y pide que se ingrese texto
+                return; // Detiene el método (no ejecuta las siguientes líneas)
+            }
+
+            long[] tablaFrecuencias = null;
+            CanonicalCode codigo;
+            long largoOriginal; // Cantidad de bytes del archivo original, el decodificador se detiene al alcanzarla
+            int flagIndice = intervaloIndice > 0 ? HuffmanFormat.FLAG_INDICE : 0;
+            if (diccionario != null) { // Tabla ya entrenada: no hay que contar frecuencias ni escribir la tabla
+                codigo = diccionario.codigo;
+                largoOriginal = new File(inputFile).length();
+                HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_CANONICA,
+                        HuffmanFormat.FLAG_DICCIONARIO | flagIndice);
+                writer.write(diccionario.id, Integer.SIZE);
+                writer.write(diccionario.checksum, Integer.SIZE);
+                writer.write(largoOriginal);
+            } else {
+                long contados = 0; // bytes con que se construye la tabla
+                if (muestra > 0) {
+                    largoOriginal = new File(inputFile).length();
+                    if (tramosMuestra == 1) { // el comienzo se cuenta y luego se codifica sin volver a leerlo
+                        byte[] inicio = etapaLectura.readNBytes((int) Math.min(muestra, largoOriginal));
+                        tablaFrecuencias = new long[256];
+                        for (byte b : inicio) tablaFrecuencias[b & 0xFF]++;
+                        inputStream = new SequenceInputStream(new ByteArrayInputStream(inicio), etapaLectura);
+                    } else if (muestra < largoOriginal) {
+                        tablaFrecuencias = muestrearFrecuencias(largoOriginal);
+                    } else {
+                        tablaFrecuencias = generarTablaDeFrecuencias();
+                    }
+                    for (long frecuencia : tablaFrecuencias) contados += frecuencia;
+                    if (contados < largoOriginal) { // todo byte debe tener código, aunque no aparezca en la muestra
+                        for (int s = 0; s < tablaFrecuencias.length; s++) {
+                            if (tablaFrecuencias[s] == 0) {
+                                tablaFrecuencias[s] = PISO_MUESTRA;
+                                contados += PISO_MUESTRA;
+                            }
+                        }
+                    }
+                } else {
+                    tablaFrecuencias = generarTablaDeFrecuencias(); // Primera pasada: frecuencias de cada byte
+                    for (long frecuencia : tablaFrecuencias) contados += frecuencia;
+                    largoOriginal = contados;
+                }
+                bitsPorLimite.reset();
+
+                int modo = HuffmanBlock.modoSinCodigo(tablaFrecuencias, contados);
+                if (modo != HuffmanBlock.MODO_BYTES) { // datos ya comprimidos o un solo byte: sin árbol
+                    HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_CANONICA, HuffmanFormat.FLAG_CRUDO);
+                    writer.write(largoOriginal);
+                    writer.write((byte) modo);
+                    if (modo == HuffmanBlock.MODO_CONSTANTE) {
+                        int simbolo = 0;
+                        while (tablaFrecuencias[simbolo] == 0) simbolo++;
+                        writer.write((byte) simbolo);
+                    } else {
+                        copiarSinCodificar(inputStream, writer, largoOriginal);
+                    }
+                    System.out.println("Compresión exitosa (sin codificar)...");
+                    return;
+                }
+
+                // Códigos canónicos a partir del árbol (o de package-merge si hay que limitar el largo)
+                codigo = HuffmanBlock.codigoPara(tablaFrecuencias, largoMaximo, bitsPorLimite);
+
+                // Cabecera binaria, largo original y largos de código
+                HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_CANONICA, flagIndice);
+                writer.write(largoOriginal);
+                HuffmanFormat.escribirLargos(writer, codigo.lengths());
+            }
+
+            // Puntos de control del índice: posición en bits del código de cada intervaloIndice bytes originales
+            long cantidadIndice = intervaloIndice > 0 ? (largoOriginal + intervaloIndice - 1) / intervaloIndice : 0;
+            if (cantidadIndice > Integer.MAX_VALUE - 8) throw new IOException("Intervalo de índice demasiado pequeño");
+            long[] puntos = new long[(int) cantidadIndice];
+            int cantidadPuntos = 0;
+            long siguientePunto = puntos.length > 0 ? 0 : Long.MAX_VALUE; // byte original del próximo punto
+            long procesados = 0;
+
+            // Segunda pasada: leer el archivo de entrada por bloques y escribir los códigos empaquetados, 8 bits por byte
+            byte[] bloque = new byte[tamanoBuffer];
+            int leidos;
+            while ((leidos = inputStream.read(bloque)) != -1) { // Mientras hayan bytes por leer
+                int i = 0;
+                while (i < leidos) {
+                    if (procesados + i == siguientePunto) {
+                        puntos[cantidadPuntos++] = writer.position();
+                        siguientePunto = cantidadPuntos < puntos.length
+                                ? siguientePunto + intervaloIndice : Long.MAX_VALUE;
+                    }
+                    int hasta = (int) Math.min(leidos, siguientePunto - procesados);
+                    for (; i < hasta; i++) {
+                        int lectura = bloque[i] & 0xFF;
+                        writer.write(codigo.code(lectura), codigo.length(lectura)); // Código canónico del byte leído
+                    }
+                }
+                procesados += leidos;
+            }
+            if (procesados != largoOriginal) throw new IOException("El archivo de entrada cambió durante la compresión");
+            if (puntos.length > 0) escribirIndice(writer, puntos, cantidadPuntos);
+
+            if (tablaFrecuencias != null) informarLimite(HuffmanTree.costoEnBits(tablaFrecuencias, codigo.lengths()));
+            System.out.println("Compresión exitosa..."); // Informa por consola que se ha concluido la compresión
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Copia la entrada tal cual después de la cabecera, de a 8 bytes por escritura (ver
+     * {@link HuffmanFormat#FLAG_CRUDO}).
+     */
+    private void copiarSinCodificar(InputStream inputStream, ChannelBitWriter writer, long largoOriginal)
+            throws IOException {
+        byte[] bloque = new byte[tamanoBuffer];
+        ByteBuffer palabras = ByteBuffer.wrap(bloque);
+        long copiados = 0;
+        int leidos;
+        while ((leidos = inputStream.readNBytes(bloque, 0, bloque.length)) > 0) {
+            int i = 0;
+            for (; i + Long.BYTES <= leidos; i += Long.BYTES) writer.write(palabras.getLong(i));
+            for (; i < leidos; i++) writer.write(bloque[i]);
+            copiados += leidos;
+        }
+        if (copiados != largoOriginal) throw new IOException("El archivo de entrada cambió durante la compresión");
+    }
+
+    /**
+     * Escribe el índice de puntos de control después de los bits, alineado a byte, y al final su posición (ver
+     * {@link HuffmanFormat#FLAG_INDICE}).
+     */
+    private void escribirIndice(ChannelBitWriter writer, long[] puntos, int cantidad) throws IOException {
+        if (cantidad != puntos.length) throw new IOException("El archivo de entrada cambió durante la compresión");
+        writer.write(0, (int) (-writer.position() & 7)); // completa el último byte
+        long posicionIndice = writer.position() / Byte.SIZE;
+        writer.write(intervaloIndice, Integer.SIZE);
+        writer.write(cantidad, Integer.SIZE);
+        for (long punto : puntos) writer.write(punto);
+        writer.write(posicionIndice);
+    }
+
+    /**
+     * Comprime el archivo de entrada en una sola lectura con Huffman adaptativo ({@link AdaptiveHuffmanTree}): no se
+     * cuentan las frecuencias antes ni se escribe una tabla, el árbol se va actualizando con cada byte. Sirve para
+     * entradas que no se pueden leer dos veces y evita la primera pasada en archivos grandes, a cambio de una
+     * codificación más lenta (el árbol cambia con cada byte).
+     * <p>formato archivo de salida: cabecera con {@link HuffmanFormat#FLAG_ADAPTATIVO}|bits|símbolo de fin</p>
+     */
+    public void encodeAdaptativo() {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(inputFile), tamanoBuffer);
+             BitWriter writer = new ChannelBitWriter(FileChannel.open(Paths.get(outputFile),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), tamanoBuffer)) {
+            HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_CANONICA, HuffmanFormat.FLAG_ADAPTATIVO);
+            AdaptiveHuffmanTree.comprimir(inputStream, writer);
+            System.out.println("Compresión exitosa...");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Comprime el archivo de entrada con un código de orden 1 ({@link ContextHuffmanCode}): cada byte se escribe con
+     * la tabla del byte anterior, lo que en texto y registros ocupa bastante menos que una sola tabla. Igual que
+     * {@link #encode()}, lee la entrada dos veces (para contar los pares de bytes y para codificar) sin guardarla en
+     * memoria, y respeta {@link #setLargoMaximo(int)}. No escribe índice ni usa diccionario.
+     * <p>formato archivo de salida: cabecera con {@link HuffmanFormat#FLAG_CONTEXTO}|long largo_original|tablas de
+     * los contextos|bits</p>
+     */
+    public void encodeContexto() {
+        try (ChannelBitWriter writer = new ChannelBitWriter(FileChannel.open(Paths.get(outputFile),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), tamanoBuffer)) {
+            long largoOriginal = new File(inputFile).length();
+            if (largoOriginal == 0) { // Igual que encode(): un archivo vacío queda vacío
+                System.out.println(new File(inputFile).getName() + " está vacío. Ingrese texto para codificarlo");
+                return;
+            }
+
+            // Primera pasada: frecuencias de cada byte según el byte anterior
+            long[][] frecuencias = new long[256][256];
+            byte[] bloque = new byte[tamanoBuffer];
+            int anterior = 0;
+            int leidos;
+            try (FileInputStream inputStream = new FileInputStream(inputFile)) {
+                while ((leidos = inputStream.read(bloque)) != -1) {
+                    for (int i = 0; i < leidos; i++) {
+                        int lectura = bloque[i] & 0xFF;
+                        frecuencias[anterior][lectura]++;
+                        anterior = lectura;
+                    }
+                }
+            }
+            bitsPorLimite.reset();
+            ContextHuffmanCode contexto = ContextHuffmanCode.construir(frecuencias, largoMaximo, bitsPorLimite);
+
+            HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_CANONICA, HuffmanFormat.FLAG_CONTEXTO);
+            writer.write(largoOriginal);
+            contexto.escribir(writer);
+
+            // Segunda pasada: cada byte con el código de su contexto
+            anterior = 0;
+            long procesados = 0;
+            try (FileInputStream inputStream = new FileInputStream(inputFile)) {
+                while ((leidos = inputStream.read(bloque)) != -1) {
+                    for (int i = 0; i < leidos; i++) {
+                        int lectura = bloque[i] & 0xFF;
+                        CanonicalCode codigo = contexto.codigo(anterior);
+                        writer.write(codigo.code(lectura), codigo.length(lectura));
+                        anterior = lectura;
+                    }
+                    procesados += leidos;
+                }
+            }
+            if (procesados != largoOriginal) throw new IOException("El archivo de entrada cambió durante la compresión");
+
+            informarLimite(writer.position());
+            System.out.println("Compresión exitosa (" + contexto.contextosPropios() + " contextos con tabla propia)...");
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Comprime el archivo de entrada en bloques independientes, cada uno con su propia tabla de Huffman, usando
+     * el pool común de hilos. Ver {@link #encodeParalelo(int, ForkJoinPool)}.
+     *
+     * @param tamanoBloque Tamaño de cada bloque en bytes (por ejemplo {@link HuffmanBlock#TAMANO_BLOQUE_POR_DEFECTO}).
+     */
+    public void encodeParalelo(int tamanoBloque) {
+        encodeParalelo(tamanoBloque, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Comprime el archivo de entrada en bloques independientes de {@code tamanoBloque} bytes. Cada bloque cuenta
+     * sus propias frecuencias y se codifica con su propio {@link HuffmanTree}, en paralelo en el pool indicado.
+     * Los bloques se escriben en orden, seguidos de un índice que permite descomprimirlos también en paralelo.
+     * Cada bloque lleva el CRC32C de sus datos ({@link HuffmanFormat#FLAG_CRC}), calculado en el mismo hilo que lo
+     * comprime, y los bloques que no ganan nada con Huffman o repiten un solo byte se guardan sin construir su código
+     * ({@link HuffmanFormat#FLAG_CRUDO}).
+     * <p>
+     * formato archivo de salida ({@link HuffmanFormat#VERSION_BLOQUES}):
+     * cabecera|int tamaño_bloque|bloques...|índice|long posición_índice
+     * </p>
+     * <p>Se comprimen a la vez a lo más 2 × paralelismo bloques, por lo que la memoria usada es proporcional a
+     * {@code tamanoBloque} y no al tamaño de la entrada.</p>
+     *
+     * @param tamanoBloque Tamaño de cada bloque en bytes.
+     * @param pool         Pool de hilos donde se comprimen los bloques.
+     * @throws IllegalArgumentException Si el tamaño de bloque no es positivo.
+     */
+    public void encodeParalelo(int tamanoBloque, ForkJoinPool pool) {
+        if (tamanoBloque < 1) throw new IllegalArgumentException("tamaño de bloque inválido: " + tamanoBloque);
+        try (FileChannel entrada = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+             DataOutputStream salida = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(outputFile), tamanoBuffer))) {
+            long largoArchivo = entrada.size();
+            if (largoArchivo == 0) { // Igual que encode(): un archivo vacío queda vacío
+                System.out.println(new File(inputFile).getName() + " está vacío. Ingrese texto para codificarlo");
+                return;
+            }
+            int cantidadBloques = (int) ((largoArchivo + tamanoBloque - 1) / tamanoBloque);
+
+            bitsPorLimite.reset();
+            int flags = HuffmanFormat.FLAG_CRC | HuffmanFormat.FLAG_CRUDO
+                    | (subflujos > 1 ? HuffmanFormat.FLAG_SUBFLUJOS : 0) | (rachas ? HuffmanFormat.FLAG_RACHAS : 0);
+            HuffmanFormat.escribirCabecera(salida, HuffmanFormat.VERSION_BLOQUES, flags);
+            salida.writeInt(tamanoBloque);
+
+            long[] posiciones = new long[cantidadBloques]; // posición de cada bloque en el archivo de salida
+            int[] largos = new int[cantidadBloques]; // largo original de cada bloque
+            long posicion = salida.size();
+
+            // Los bloques se comprimen en paralelo, pero se escriben en orden a medida que terminan
+            ArrayDeque<ForkJoinTask<byte[]>> enVuelo = new ArrayDeque<>();
+            int ventana = 2 * pool.getParallelism();
+            int siguiente = 0;
+            for (int b = 0; b < cantidadBloques; b++) {
+                while (siguiente < cantidadBloques && enVuelo.size() < ventana) {
+                    final long desde = (long) siguiente * tamanoBloque;
+                    final int largo = (int) Math.min(tamanoBloque, largoArchivo - desde);
+                    enVuelo.add(pool.submit(() -> comprimirBloque(entrada, desde, largo, flags)));
+                    siguiente++;
+                }
+                byte[] comprimido;
+                try {
+                    comprimido = enVuelo.poll().join();
+                } catch (RuntimeException e) { // no se espera a los demás bloques: se descartan
+                    for (ForkJoinTask<byte[]> tarea : enVuelo) tarea.cancel(false);
+                    for (ForkJoinTask<byte[]> tarea : enVuelo) tarea.quietlyJoin();
+                    throw e;
+                }
+                posiciones[b] = posicion;
+                largos[b] = (int) Math.min(tamanoBloque, largoArchivo - (long) b * tamanoBloque);
+                salida.write(comprimido);
+                posicion += comprimido.length;
+            }
+
+            // Índice de bloques y, al final, su posición
+            salida.writeInt(cantidadBloques);
+            for (int b = 0; b < cantidadBloques; b++) {
+                salida.writeLong(posiciones[b]);
+                salida.writeInt(largos[b]);
+            }
+            salida.writeLong(posicion);
+
+            informarLimite(8 * posicion);
+            System.out.println("Compresión exitosa...");
+
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Lee un bloque del archivo de entrada y lo comprime. Se ejecuta en un hilo del pool.
+     */
+    private byte[] comprimirBloque(FileChannel entrada, long desde, int largo, int flags) {
+        try {
+            ByteBuffer datos = ByteBuffer.allocate(largo);
+            HuffmanFormat.leerEn(entrada, datos, desde);
+            return HuffmanBlock.comprimir(datos.array(), 0, largo, largoMaximo, subflujos, flags, bitsPorLimite);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) { // un error inesperado se informa como los de lectura, con su bloque
+            throw new UncheckedIOException(new IOException("Error al comprimir el bloque en " + desde, e));
+        }
+    }
+
+    /**
+     * Genera una tabla de frecuencias para los datos proporcionados en el archivo de entrada.
+     * Esta tabla representa la frecuencia de cada byte del archivo de entrada.
+     *
+     * <p>El archivo se proyecta en memoria ({@link FileChannel#map}) y se divide en segmentos que se cuentan en
+     * paralelo, cada uno en su propio histograma local de 256 posiciones; al final los histogramas se suman.
+     * Se cuentan bytes, no caracteres, así que la tabla coincide exactamente con lo que emite el codificador.</p>
+     *
+     * @return Una array de tipo long donde cada índice representa un valor único
+     * en los datos y el valor en ese índice representa la frecuencia de ese valor.
+     * @throws IOException Si no se puede abrir o leer el archivo de entrada.
+     */
+    public long[] generarTablaDeFrecuencias() throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)) { // abre el archivo
+            return ForkJoinPool.commonPool().invoke(new _ConteoParalelo(canal, 0, canal.size()));
+        } catch (UncheckedIOException e) { // error de lectura en alguno de los segmentos
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Cuenta las frecuencias de los {@link #tramosMuestra} tramos de la muestra, cada uno al comienzo de una de las
+     * partes iguales en que se divide el archivo (ver {@link #setMuestra(int, int)}).
+     *
+     * @param largoArchivo Largo del archivo de entrada, mayor que la muestra.
+     * @return La frecuencia de cada byte en la muestra.
+     * @throws IOException Si ocurre un error de lectura.
+     */
+    private long[] muestrearFrecuencias(long largoArchivo) throws IOException {
+        long[] out = new long[256];
+        long paso = largoArchivo / tramosMuestra;
+        long tamanoTramo = muestra / tramosMuestra;
+        try (FileChannel canal = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)) {
+            for (int k = 0; k < tramosMuestra; k++) {
+                long[] tramo = ForkJoinPool.commonPool().invoke(new _ConteoParalelo(canal, k * paso, tamanoTramo));
+                for (int s = 0; s < out.length; s++) out[s] += tramo[s];
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return out;
+    }
+
+    /**
+     * Cuenta las frecuencias de un rango del archivo. Los rangos grandes se dividen en dos mitades que se cuentan en
+     * paralelo; los pequeños se proyectan en memoria y se recorren en un histograma local.
+     */
+    private static class _ConteoParalelo extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        /** Tamaño máximo de un segmento que se cuenta sin dividir. */
+        static final long SEGMENTO = 4L * 1024 * 1024;
+
+        final FileChannel canal;
+        final long desde;
+        final long largo;
+
+        _ConteoParalelo(FileChannel canal, long desde, long largo) {
+            this.canal = canal;
+            this.desde = desde;
+            this.largo = largo;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (largo > SEGMENTO) { // se divide en dos mitades
+                long mitad = largo / 2;
+                _ConteoParalelo izquierda = new _ConteoParalelo(canal, desde, mitad);
+                _ConteoParalelo derecha = new _ConteoParalelo(canal, desde + mitad, largo - mitad);
+                izquierda.fork();
+                long[] out = derecha.compute();
+                long[] otra = izquierda.join();
+                for (int i = 0; i < out.length; i++) out[i] += otra[i];
+                return out;
+            }
+            long[] out = new long[256]; // histograma local de este segmento
+            if (largo == 0) return out;
+            try {
+                MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, desde, largo);
+                for (int i = 0; i < largo; i++) {
+                    out[datos.get(i) & 0xFF] += 1;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out;
+        }
+    }
+}
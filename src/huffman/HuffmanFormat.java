@@ -0,0 +1,278 @@
+package huffman;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Constantes y utilidades del formato de archivo comprimido.
+ * <p>
+ * Todo archivo comprimido comienza con una cabecera binaria:
+ * </p>
+ * <pre>
+ * byte[3] número mágico 'H' 'U' 'F' | byte versión | byte flags | ...
+ * </pre>
+ * <p>
+ * Los archivos generados antes de existir el número mágico (frecuencias y bits escritos como caracteres
+ * ASCII '0' y '1') no tienen cabecera; se reconocen como {@link #VERSION_ASCII} para poder seguir
+ * descomprimiéndolos.
+ * </p>
+ */
+public final class HuffmanFormat {
+
+    /** Número mágico con el que comienza todo archivo en formato binario. */
+    static final byte[] MAGIC = {'H', 'U', 'F'};
+
+    /** Formato original: frecuencias, largo y bits escritos como texto ASCII '0'/'1'. No tiene cabecera. */
+    static final int VERSION_ASCII = 0;
+
+    /**
+     * Formato binario con frecuencias:
+     * cabecera | long largo_original | long[256] frecuencias | bits empaquetados (8 por byte).
+     */
+    static final int VERSION_FRECUENCIAS = 1;
+
+    /**
+     * Formato binario con código canónico:
+     * cabecera | long largo_original | tabla de largos | bits empaquetados (8 por byte).
+     * <p>La tabla de largos es un mapa de 256 bits (32 bytes) con los bytes presentes, seguido de un byte con el
+     * largo de código de cada byte presente, en orden.</p>
+     */
+    static final int VERSION_CANONICA = 2;
+
+    /**
+     * Formato por bloques independientes, cada uno con su propia tabla (ver {@link HuffmanBlock}):
+     * cabecera | int tamaño_bloque | bloques... | índice | long posición_índice.
+     * <p>El índice es un int con la cantidad de bloques y, por cada bloque, un long con su posición en el archivo y
+     * un int con su largo original. Se escribe al final, por lo que el archivo se puede generar en un solo recorrido,
+     * y la posición del índice ocupa los últimos 8 bytes del archivo.</p>
+     */
+    static final int VERSION_BLOQUES = 3;
+
+    /**
+     * Formato de flujo, que se escribe y lee en un solo recorrido sin posicionarse en el archivo (ver
+     * {@link HuffmanOutputStream}): cabecera | (int largo_comprimido | bloque)... | int 0.
+     * <p>Cada bloque es un {@link HuffmanBlock} precedido por su largo en bytes; un largo 0 marca el final, por lo
+     * que después del flujo comprimido pueden venir otros datos.</p>
+     */
+    static final int VERSION_FLUJO = 4;
+
+    /**
+     * Archivo contenedor con varias entradas comprimidas por separado (ver {@link HuffmanArchive}):
+     * cabecera | entradas... | directorio | long posición_directorio.
+     */
+    static final int VERSION_ARCHIVO = 5;
+
+    /**
+     * Flag de {@link #VERSION_CANONICA}: los datos se codificaron con {@link AdaptiveHuffmanTree} en una sola
+     * pasada. Después de la cabecera no hay largo ni tabla, sólo los bits, que terminan con el símbolo de fin.
+     */
+    static final int FLAG_ADAPTATIVO = 0x01;
+
+    /**
+     * Flag de {@link #VERSION_CANONICA}: el código es el de un diccionario entrenado ({@link HuffmanDictionary}).
+     * En vez de la tabla de largos se guarda int id | int checksum del diccionario, antes del largo original.
+     */
+    static final int FLAG_DICCIONARIO = 0x02;
+
+    /**
+     * Flag de {@link #VERSION_BLOQUES} y {@link #VERSION_FLUJO}: cada bloque está dividido en subflujos intercalados
+     * y después de su tabla de largos lleva {@code byte cantidad | int[cantidad] largos} (ver {@link HuffmanBlock}).
+     */
+    static final int FLAG_SUBFLUJOS = 0x04;
+
+    /**
+     * Flag de {@link #VERSION_CANONICA}: después de los bits viene un índice de puntos de control para descomprimir
+     * un rango sin empezar desde el comienzo (ver {@link HuffmanDecoder#decodeRange(long, int)}):
+     * {@code int intervalo | int cantidad | long[cantidad] posición en bits | long posición_índice}. El punto k es
+     * el bit donde comienza el código del byte original {@code k × intervalo}; la posición del índice (en bytes)
+     * ocupa los últimos 8 bytes del archivo. Los decodificadores que no conocen el flag ignoran el índice.
+     */
+    static final int FLAG_INDICE = 0x08;
+
+    /**
+     * Flag de {@link #VERSION_BLOQUES} y {@link #VERSION_FLUJO}: cada bloque lleva, después de su largo, un int con
+     * el CRC32C de sus datos originales, que se comprueba al descomprimir (ver {@link HuffmanBlock}).
+     */
+    static final int FLAG_CRC = 0x10;
+
+    /**
+     * Flag de {@link #VERSION_CANONICA}: cada byte se codificó con la tabla del byte anterior
+     * ({@link ContextHuffmanCode}). En vez de una tabla de largos se guardan las tablas de los contextos, después del
+     * largo original.
+     */
+    static final int FLAG_CONTEXTO = 0x20;
+
+    /**
+     * Flag de {@link #VERSION_BLOQUES} y {@link #VERSION_FLUJO}: cada bloque lleva, después del CRC, un byte con su
+     * modo, que indica si las rachas de un byte repetido tienen sus propios símbolos (ver {@link HuffmanBlock}).
+     */
+    static final int FLAG_RACHAS = 0x40;
+
+    /**
+     * Flag de {@link #VERSION_BLOQUES} y {@link #VERSION_FLUJO}: cada bloque lleva el byte de modo (como con
+     * {@link #FLAG_RACHAS}) y puede guardarse sin codificar o como un solo byte repetido (ver {@link HuffmanBlock}).
+     * En {@link #VERSION_CANONICA}, los datos no se codificaron: después del largo original viene
+     * {@code byte modo | datos}, con los bytes originales ({@link HuffmanBlock#MODO_CRUDO}) o el único byte que se
+     * repite ({@link HuffmanBlock#MODO_CONSTANTE}).
+     */
+    static final int FLAG_CRUDO = 0x80;
+
+    /** Número mágico de los archivos de diccionario. */
+    static final byte[] MAGIC_DICCIONARIO = {'H', 'U', 'D'};
+
+    /** Versión que escribe actualmente {@link HuffmanEncoder}. */
+    static final int VERSION_ACTUAL = VERSION_CANONICA;
+
+    private HuffmanFormat() {
+    }
+
+    /**
+     * Escribe la cabecera (número mágico, versión y flags) al comienzo del archivo.
+     *
+     * @param writer  Escritor de bits posicionado al inicio del archivo.
+     * @param version Versión del formato.
+     * @param flags   Opciones del formato (0 si no se usa ninguna).
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    static void escribirCabecera(BitWriter writer, int version, int flags) throws IOException {
+        for (byte b : MAGIC) writer.write(b);
+        writer.write((byte) version);
+        writer.write((byte) flags);
+    }
+
+    /**
+     * Lee la versión y los flags de la cabecera. Debe haberse leído antes el número mágico.
+     *
+     * @param reader Lector posicionado justo después del número mágico.
+     * @return Un arreglo {versión, flags}.
+     * @throws IOException Si el archivo termina antes de completar la cabecera.
+     */
+    static int[] leerCabecera(BitReader reader) throws IOException {
+        for (byte b : MAGIC) {
+            if (reader.nextByte() != b) throw new IOException("Número mágico inválido");
+        }
+        int version = reader.nextByte() & 0xFF;
+        int flags = reader.nextByte() & 0xFF;
+        return new int[]{version, flags};
+    }
+
+    /**
+     * Escribe la cabecera en un flujo de bytes, para los formatos que no se escriben bit a bit.
+     *
+     * @param output  Flujo posicionado al inicio del archivo.
+     * @param version Versión del formato.
+     * @param flags   Opciones del formato (0 si no se usa ninguna).
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    static void escribirCabecera(DataOutput output, int version, int flags) throws IOException {
+        output.write(MAGIC);
+        output.writeByte(version);
+        output.writeByte(flags);
+    }
+
+    /**
+     * Lee la cabecera desde un flujo de bytes, comprobando el número mágico.
+     *
+     * @param input Flujo posicionado al inicio del archivo.
+     * @return Un arreglo {versión, flags}.
+     * @throws IOException Si el número mágico no coincide o el archivo termina antes de completar la cabecera.
+     */
+    static int[] leerCabecera(DataInput input) throws IOException {
+        for (byte b : MAGIC) {
+            if (input.readByte() != b) throw new IOException("Número mágico inválido");
+        }
+        int version = input.readUnsignedByte();
+        int flags = input.readUnsignedByte();
+        return new int[]{version, flags};
+    }
+
+    /**
+     * Escribe la tabla de largos de un código canónico de 256 símbolos: el mapa de bytes presentes y luego el
+     * largo de cada uno.
+     *
+     * @param writer Escritor de bits.
+     * @param largos Largo del código de cada byte, 0 si no aparece.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    static void escribirLargos(BitWriter writer, byte[] largos) throws IOException {
+        for (int i = 0; i < 256; i++) {
+            writer.write(largos[i] != 0 ? 1 : 0, 1);
+        }
+        for (int i = 0; i < 256; i++) {
+            if (largos[i] != 0) writer.write(largos[i]);
+        }
+    }
+
+    /**
+     * Lee una tabla de largos escrita con {@link #escribirLargos(BitWriter, byte[])}.
+     *
+     * @param reader Lector posicionado al inicio de la tabla.
+     * @return Largo del código de cada byte, 0 si no aparece.
+     * @throws IOException Si el archivo termina antes de completar la tabla.
+     */
+    static byte[] leerLargos(BitReader reader) throws IOException {
+        byte[] mapa = new byte[256 / Byte.SIZE];
+        for (int i = 0; i < mapa.length; i++) mapa[i] = reader.nextByte();
+        byte[] largos = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            if ((mapa[i / Byte.SIZE] & (0x80 >>> (i % Byte.SIZE))) != 0) largos[i] = reader.nextByte();
+        }
+        return largos;
+    }
+
+    /**
+     * Lee desde una posición del archivo hasta llenar el buffer. No modifica la posición del canal, por lo que
+     * varios hilos pueden leer del mismo canal a la vez.
+     *
+     * @param canal    Canal del archivo.
+     * @param destino  Buffer a llenar.
+     * @param posicion Posición del archivo desde donde se lee.
+     * @throws IOException Si el archivo termina antes de llenar el buffer.
+     */
+    static void leerEn(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion);
+            if (leidos == -1) throw new EOFException("Fin de archivo en la posición " + posicion);
+            posicion += leidos;
+        }
+    }
+
+    /**
+     * Escribe todo el buffer en una posición del archivo, sin modificar la posición del canal.
+     *
+     * @param canal    Canal del archivo.
+     * @param origen   Buffer a escribir.
+     * @param posicion Posición del archivo donde se escribe.
+     * @throws IOException Si ocurre un error de escritura en el archivo.
+     */
+    static void escribirEn(FileChannel canal, ByteBuffer origen, long posicion) throws IOException {
+        while (origen.hasRemaining()) {
+            posicion += canal.write(origen, posicion);
+        }
+    }
+
+    /**
+     * Determina el formato de un archivo comprimido mirando sus primeros bytes.
+     *
+     * @param fileName Ruta del archivo comprimido.
+     * @return La versión declarada en la cabecera, o {@link #VERSION_ASCII} si el archivo no comienza con el
+     * número mágico.
+     * @throws IOException Si ocurre un error de lectura en el archivo.
+     */
+    static int detectarVersion(String fileName) throws IOException {
+        try (FileInputStream input = new FileInputStream(fileName)) {
+            byte[] cabecera = new byte[MAGIC.length + 1];
+            int leidos = input.readNBytes(cabecera, 0, cabecera.length);
+            if (leidos < cabecera.length) return VERSION_ASCII;
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (cabecera[i] != MAGIC[i]) return VERSION_ASCII;
+            }
+            return cabecera[MAGIC.length] & 0xFF;
+        }
+    }
+}
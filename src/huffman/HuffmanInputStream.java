@@ -0,0 +1,176 @@
+package huffman;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Flujo de entrada que descomprime los datos escritos con {@link HuffmanOutputStream}.
+ * <p>
+ * La descompresión es perezosa: cada bloque se lee y descomprime recién cuando el que lee pide bytes que no están
+ * en el bloque anterior, por lo que en memoria hay a lo más un bloque. Después de la marca de fin no se lee nada
+ * más del flujo de origen, que puede seguir usándose para otros datos.
+ * </p>
+ */
+public class HuffmanInputStream extends FilterInputStream {
+
+    /** Largo máximo por defecto de un bloque constante o con rachas: 64 MB. */
+    static final int TAMANO_BLOQUE_MAXIMO = 64 << 20;
+
+    /** Origen, para leer los largos de los bloques como int. */
+    private final DataInputStream entrada;
+
+    /** Flags de la cabecera, que indican el formato de los bloques. */
+    private final int flags;
+
+    /** Largo máximo de los bloques cuyo largo no está acotado por sus bytes comprimidos. */
+    private final int tamanoBloque;
+
+    /** Bytes descomprimidos del bloque actual. */
+    private byte[] bloque = new byte[0];
+
+    /** Posición del siguiente byte a entregar de {@link #bloque}. */
+    private int posicion;
+
+    /** Si ya se leyó la marca de fin. */
+    private boolean fin;
+
+    /**
+     * Crea el flujo y lee la cabecera. Acepta bloques constantes o con rachas de hasta
+     * {@link #TAMANO_BLOQUE_MAXIMO} bytes.
+     *
+     * @param in Flujo con los datos comprimidos.
+     * @throws IOException Si el flujo no comienza con una cabecera de {@link HuffmanFormat#VERSION_FLUJO}.
+     */
+    public HuffmanInputStream(InputStream in) throws IOException {
+        this(in, TAMANO_BLOQUE_MAXIMO);
+    }
+
+    /**
+     * Crea el flujo y lee la cabecera.
+     *
+     * @param in           Flujo con los datos comprimidos.
+     * @param tamanoBloque Tamaño de bloque con que se escribió el flujo (ver {@link HuffmanOutputStream}). Los
+     *                     bloques constantes y con rachas no tienen otra cota, así que un largo mayor se rechaza
+     *                     como dañado antes de reservar memoria para el bloque.
+     * @throws IOException Si el flujo no comienza con una cabecera de {@link HuffmanFormat#VERSION_FLUJO}.
+     * @throws IllegalArgumentException Si el tamaño de bloque no es positivo.
+     */
+    public HuffmanInputStream(InputStream in, int tamanoBloque) throws IOException {
+        super(in);
+        if (tamanoBloque < 1) throw new IllegalArgumentException("tamaño de bloque < 1: " + tamanoBloque);
+        this.tamanoBloque = tamanoBloque;
+        this.entrada = new DataInputStream(in);
+        int[] cabecera = HuffmanFormat.leerCabecera(entrada);
+        int version = cabecera[0];
+        this.flags = cabecera[1];
+        if (version != HuffmanFormat.VERSION_FLUJO) {
+            throw new IOException("El flujo no está en formato de flujo Huffman (versión " + version + ")");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!hayBytes()) return -1;
+        return bloque[posicion++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return 0;
+        if (!hayBytes()) return -1;
+        int n = Math.min(len, bloque.length - posicion);
+        System.arraycopy(bloque, posicion, b, off, n);
+        posicion += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long saltados = 0;
+        while (saltados < n && hayBytes()) {
+            int m = (int) Math.min(n - saltados, bloque.length - posicion);
+            posicion += m;
+            saltados += m;
+        }
+        return saltados;
+    }
+
+    /**
+     * @return Los bytes que quedan del bloque actual, que se pueden leer sin descomprimir otro bloque.
+     */
+    @Override
+    public int available() {
+        return bloque.length - posicion;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset no soportado");
+    }
+
+    /**
+     * Se asegura de que quede al menos un byte por entregar, descomprimiendo el siguiente bloque si hace falta.
+     *
+     * @return false si se llegó a la marca de fin.
+     */
+    private boolean hayBytes() throws IOException {
+        while (posicion == bloque.length) {
+            if (fin) return false;
+            int largoComprimido = entrada.readInt();
+            if (largoComprimido < 0) throw new IOException("Largo de bloque inválido: " + largoComprimido);
+            if (largoComprimido == 0) {
+                fin = true;
+                return false;
+            }
+            byte[] comprimido = entrada.readNBytes(largoComprimido); // crece a medida que llegan los bytes
+            if (comprimido.length < largoComprimido) throw new EOFException("Flujo truncado");
+            comprobarLargo(comprimido);
+            try (BitReader reader = new FileBufferedBitReader(new ByteArrayInputStream(comprimido), largoComprimido)) {
+                bloque = HuffmanBlock.descomprimir(reader, HuffmanTableCache.compartido(), flags);
+            }
+            posicion = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Acota el largo original de un bloque según su modo, antes de que {@link HuffmanBlock#descomprimir} reserve
+     * memoria para él: sin codificar debe caber en los bytes del bloque, codificado cada byte ocupa al menos un bit,
+     * y los bloques constantes y con rachas no pueden superar el tamaño de bloque.
+     *
+     * @param comprimido Bytes del bloque, desde su largo original.
+     * @throws IOException Si el largo no es posible en ese modo o el bloque termina antes del modo.
+     */
+    private void comprobarLargo(byte[] comprimido) throws IOException {
+        if (comprimido.length < Integer.BYTES) throw new EOFException("Bloque truncado");
+        long largo = ByteBuffer.wrap(comprimido).getInt() & 0xFFFFFFFFL;
+        int inicioDatos = Integer.BYTES + ((flags & HuffmanFormat.FLAG_CRC) != 0 ? Integer.BYTES : 0);
+        int modo = HuffmanBlock.MODO_BYTES;
+        if ((flags & (HuffmanFormat.FLAG_RACHAS | HuffmanFormat.FLAG_CRUDO)) != 0) {
+            if (comprimido.length <= inicioDatos) throw new EOFException("Bloque truncado");
+            modo = comprimido[inicioDatos++];
+        }
+        long maximo = switch (modo) {
+            case HuffmanBlock.MODO_CRUDO -> comprimido.length - inicioDatos;
+            case HuffmanBlock.MODO_CONSTANTE, HuffmanBlock.MODO_RACHAS -> tamanoBloque;
+            default -> 8L * comprimido.length; // un modo inválido lo rechaza HuffmanBlock.descomprimir
+        };
+        if (largo > maximo) throw new IOException("Largo de bloque inválido: " + largo);
+    }
+}
@@ -1,3 +1,5 @@
+package huffman;
+
 /**
  * Interfaz para un iterador de Huffman.
  * Proporciona métodos para navegar a través de un árbol de Huffman.
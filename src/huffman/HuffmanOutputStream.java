@@ -0,0 +1,175 @@
+package huffman;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flujo de salida que comprime con Huffman todo lo que se escribe en él, en formato
+ * {@link HuffmanFormat#VERSION_FLUJO}.
+ * <p>
+ * Los bytes se juntan en un bloque; cuando el bloque se llena se construye su tabla con {@link HuffmanBlock} y se
+ * escribe comprimido en el flujo de destino, junto con el CRC32C de sus datos. Como nunca hay que volver atrás en
+ * la salida, el destino puede ser un socket, una tubería o cualquier otro {@link OutputStream}, sin pasar por
+ * archivos temporales. Los datos se leen con {@link HuffmanInputStream}, que comprueba el CRC de cada bloque.
+ * </p>
+ */
+public class HuffmanOutputStream extends FilterOutputStream {
+
+    /** Destino, para escribir los largos de los bloques como int. */
+    private final DataOutputStream salida;
+
+    /** Bytes del bloque actual, todavía sin comprimir. */
+    private final byte[] bloque;
+
+    /** Cantidad de subflujos intercalados de cada bloque. */
+    private final int subflujos;
+
+    /** Flags de la cabecera, que indican el formato de los bloques. */
+    private final int flags;
+
+    /** Cantidad de bytes ocupados de {@link #bloque}. */
+    private int largo;
+
+    /** Si ya se escribió la marca de fin. */
+    private boolean terminado;
+
+    /**
+     * Crea el flujo con bloques de {@link HuffmanBlock#TAMANO_BLOQUE_POR_DEFECTO} bytes.
+     *
+     * @param out Flujo donde se escriben los datos comprimidos.
+     * @throws IOException Si no se puede escribir la cabecera.
+     */
+    public HuffmanOutputStream(OutputStream out) throws IOException {
+        this(out, HuffmanBlock.TAMANO_BLOQUE_POR_DEFECTO);
+    }
+
+    /**
+     * Crea el flujo y escribe la cabecera.
+     *
+     * @param out          Flujo donde se escriben los datos comprimidos.
+     * @param tamanoBloque Bytes de cada bloque (es la memoria que usa el flujo); bloques más grandes amortizan mejor
+     *                     la tabla de cada uno, bloques más pequeños entregan antes los datos al destino. Se usan a
+     *                     lo más {@link HuffmanInputStream#TAMANO_BLOQUE_MAXIMO} bytes, el largo que acepta por
+     *                     defecto {@link HuffmanInputStream}.
+     * @throws IOException Si no se puede escribir la cabecera.
+     */
+    public HuffmanOutputStream(OutputStream out, int tamanoBloque) throws IOException {
+        this(out, tamanoBloque, 1);
+    }
+
+    /**
+     * Crea el flujo y escribe la cabecera.
+     *
+     * @param out          Flujo donde se escriben los datos comprimidos.
+     * @param tamanoBloque Bytes de cada bloque, a lo más {@link HuffmanInputStream#TAMANO_BLOQUE_MAXIMO}.
+     * @param subflujos    Cantidad de subflujos intercalados de cada bloque, entre 1 y 255 (ver
+     *                     {@link HuffmanFormat#FLAG_SUBFLUJOS}); con más de uno la descompresión es más rápida a
+     *                     cambio de unos pocos bytes por bloque.
+     * @throws IOException Si no se puede escribir la cabecera.
+     */
+    public HuffmanOutputStream(OutputStream out, int tamanoBloque, int subflujos) throws IOException {
+        this(out, tamanoBloque, subflujos, false);
+    }
+
+    /**
+     * Crea el flujo y escribe la cabecera.
+     *
+     * @param out          Flujo donde se escriben los datos comprimidos.
+     * @param tamanoBloque Bytes de cada bloque. Uno mayor que {@link HuffmanInputStream#TAMANO_BLOQUE_MAXIMO} se
+     *                     reduce a ese máximo: si no, un bloque constante o con rachas más largo no se podría leer
+     *                     con {@link HuffmanInputStream} sin indicarle el tamaño.
+     * @param subflujos    Cantidad de subflujos intercalados de cada bloque, entre 1 y 255.
+     * @param rachas       Si cada bloque elige, según su histograma, codificar las rachas de un byte repetido como
+     *                     un solo símbolo (ver {@link HuffmanFormat#FLAG_RACHAS}).
+     * @throws IOException Si no se puede escribir la cabecera.
+     */
+    public HuffmanOutputStream(OutputStream out, int tamanoBloque, int subflujos, boolean rachas) throws IOException {
+        super(out);
+        if (tamanoBloque < 1) throw new IllegalArgumentException("tamaño de bloque < 1: " + tamanoBloque);
+        if (subflujos < 1 || subflujos > 255) throw new IllegalArgumentException("subflujos inválidos: " + subflujos);
+        this.salida = new DataOutputStream(out);
+        this.bloque = new byte[Math.min(tamanoBloque, HuffmanInputStream.TAMANO_BLOQUE_MAXIMO)];
+        this.subflujos = subflujos;
+        this.flags = HuffmanFormat.FLAG_CRC | HuffmanFormat.FLAG_CRUDO
+                | (subflujos > 1 ? HuffmanFormat.FLAG_SUBFLUJOS : 0) | (rachas ? HuffmanFormat.FLAG_RACHAS : 0);
+        HuffmanFormat.escribirCabecera(salida, HuffmanFormat.VERSION_FLUJO, flags);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (terminado) throw new IOException("El flujo ya fue terminado");
+        if (largo == bloque.length) emitirBloque();
+        bloque[largo++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (terminado) throw new IOException("El flujo ya fue terminado");
+        Objects.checkFromIndexSize(off, len, b.length);
+        while (len > 0) {
+            if (largo == bloque.length) emitirBloque();
+            int n = Math.min(len, bloque.length - largo);
+            System.arraycopy(b, off, bloque, largo, n);
+            largo += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Comprime y escribe el bloque pendiente, aunque no esté lleno, y vacía el destino. Cada llamada termina un
+     * bloque con su propia tabla, así que llamarlo muy seguido empeora la compresión.
+     *
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!terminado) emitirBloque();
+        salida.flush();
+    }
+
+    /**
+     * Escribe el bloque pendiente y la marca de fin, sin cerrar el destino, que puede seguir usándose para otros
+     * datos.
+     *
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    public void finish() throws IOException {
+        if (terminado) return;
+        emitirBloque();
+        salida.writeInt(0);
+        salida.flush();
+        terminado = true;
+    }
+
+    /**
+     * Termina el flujo comprimido con {@link #finish()} y cierra el destino.
+     *
+     * @throws IOException Si ocurre un error de escritura.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Comprime el bloque actual y lo escribe precedido de su largo. Un bloque vacío no se escribe, porque el largo 0
+     * es la marca de fin.
+     */
+    private void emitirBloque() throws IOException {
+        if (terminado) throw new IOException("El flujo ya fue terminado");
+        if (largo == 0) return;
+        byte[] comprimido = HuffmanBlock.comprimir(bloque, 0, largo, 0, subflujos, flags, new LongAdder());
+        salida.writeInt(comprimido.length);
+        salida.write(comprimido);
+        largo = 0;
+    }
+}
@@ -0,0 +1,132 @@
+package huffman;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de tablas de decodificación, indexado por la tabla de largos de código que trae cada archivo o bloque.
+ * <p>
+ * Al descomprimir muchos archivos de un mismo productor, las tablas de largos suelen repetirse; con el caché la
+ * construcción del código canónico y de la tabla de decodificación se hace una sola vez por tabla distinta. Las
+ * tablas ({@link HuffmanDecodeTable}) no cambian después de construirse, así que varios hilos y varios
+ * decodificadores pueden compartirlas. Cuando el caché se llena se descarta la tabla usada hace más tiempo (LRU).
+ * </p>
+ */
+public class HuffmanTableCache {
+
+    /** Capacidad del caché compartido: con tablas de unos 10 KB, menos de 1 MB. */
+    public static final int CAPACIDAD_POR_DEFECTO = 64;
+
+    private static final HuffmanTableCache COMPARTIDO = new HuffmanTableCache(CAPACIDAD_POR_DEFECTO);
+
+    /** Tablas por clave, en orden de uso (la primera es la usada hace más tiempo). */
+    private final LinkedHashMap<Clave, HuffmanDecodeTable> tablas;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * @param capacidad Cantidad máxima de tablas guardadas, al menos 1.
+     */
+    public HuffmanTableCache(int capacidad) {
+        if (capacidad < 1) throw new IllegalArgumentException("capacidad < 1: " + capacidad);
+        this.tablas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, HuffmanDecodeTable> eldest) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    /**
+     * @return El caché que usan por defecto {@link HuffmanDecoder} y {@link HuffmanInputStream}.
+     */
+    public static HuffmanTableCache compartido() {
+        return COMPARTIDO;
+    }
+
+    /**
+     * Entrega la tabla de decodificación de unos largos de código, construyéndola sólo si no está en el caché.
+     *
+     * @param largos Largo del código de cada símbolo, tal como se leyó de la cabecera. No se debe modificar después.
+     * @return La tabla de decodificación, compartida con otros usuarios del caché.
+     * @throws IllegalArgumentException Si los largos no forman un código prefijo.
+     */
+    public HuffmanDecodeTable obtener(byte[] largos) {
+        Clave clave = new Clave(largos);
+        HuffmanDecodeTable tabla;
+        synchronized (tablas) {
+            tabla = tablas.get(clave);
+        }
+        if (tabla != null) {
+            aciertos.increment();
+            return tabla;
+        }
+        fallos.increment();
+        tabla = new HuffmanDecodeTable(new CanonicalCode(largos)); // fuera del candado: puede tardar
+        synchronized (tablas) {
+            HuffmanDecodeTable otra = tablas.putIfAbsent(clave, tabla); // otro hilo pudo construirla a la vez
+            return otra != null ? otra : tabla;
+        }
+    }
+
+    /**
+     * @return Cantidad de veces que la tabla ya estaba en el caché.
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * @return Cantidad de veces que hubo que construir la tabla.
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * @return Cantidad de tablas guardadas.
+     */
+    public int size() {
+        synchronized (tablas) {
+            return tablas.size();
+        }
+    }
+
+    /**
+     * Descarta todas las tablas y reinicia los contadores.
+     */
+    public void limpiar() {
+        synchronized (tablas) {
+            tablas.clear();
+        }
+        aciertos.reset();
+        fallos.reset();
+    }
+
+    /**
+     * Clave del caché: los largos con su hash precalculado. Dos claves son iguales sólo si los largos son iguales,
+     * así que una colisión del hash nunca entrega una tabla equivocada.
+     */
+    private static final class Clave {
+        final byte[] largos;
+        final int hash;
+
+        Clave(byte[] largos) {
+            this.largos = largos;
+            this.hash = Arrays.hashCode(largos);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave && hash == ((Clave) o).hash && Arrays.equals(largos, ((Clave) o).largos);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,5 +1,6 @@
+package huffman;
+
 import javax.management.StringValueExp;
-import java.util.Arrays;
 import java.util.PriorityQueue;
 
 /**
@@ -72,7 +73,8 @@ public class HuffmanTree {
     public String[] encodeTable() {
         if (raiz == null) throw new RuntimeException("encode error");
         String[] out = new String[256];
-        generateCodes(raiz, "", out);
+        // Con una sola hoja el código sería vacío: igual que en codeLengths(), ocupa un bit
+        generateCodes(raiz, raiz.izquierdo == null && raiz.derecho == null ? "0" : "", out);
         return out;
     }
 
@@ -97,6 +99,66 @@ public class HuffmanTree {
     }
 
 
+    /**
+     * Calcula el largo del código de cada byte, es decir, la profundidad de su hoja en el árbol.
+     * <p>Es todo lo que necesita {@link CanonicalCode} para asignar los códigos canónicos. Si el árbol tiene una sola
+     * hoja se le asigna largo 1, para que cada byte ocupe al menos un bit.</p>
+     *
+     * @return Un arreglo de 256 largos, 0 para los bytes que no aparecen.
+     * @throws RuntimeException Si el árbol de Huffman está vacío.
+     */
+    public byte[] codeLengths() {
+        if (raiz == null) throw new RuntimeException("encode error");
+        byte[] out = new byte[256];
+        generateLengths(raiz, 0, out);
+        return out;
+    }
+
+    /**
+     * Recorre el árbol anotando la profundidad de cada hoja.
+     */
+    private void generateLengths(Nodo node, int depth, byte[] out) {
+        if (node == null) return;
+
+        if (node.izquierdo == null && node.derecho == null) { // Si el nodo es una hoja
+            if (depth > CanonicalCode.MAX_LARGO) throw new IllegalStateException("código de largo " + depth);
+            out[node.byteCode & 0xFF] = (byte) Math.max(depth, 1);
+        } else {
+            generateLengths(node.izquierdo, depth + 1, out);
+            generateLengths(node.derecho, depth + 1, out);
+        }
+    }
+
+    /**
+     * Calcula la cantidad de bits que ocupan los datos codificados con los largos dados.
+     *
+     * @param frecuencias Frecuencia de cada símbolo.
+     * @param largos      Largo del código de cada símbolo.
+     * @return La suma de frecuencia × largo.
+     */
+    public static long costoEnBits(long[] frecuencias, byte[] largos) {
+        long out = 0;
+        for (int i = 0; i < frecuencias.length; i++) {
+            out += frecuencias[i] * (largos[i] & 0xFF);
+        }
+        return out;
+    }
+
+    /**
+     * Calcula largos de código óptimos que no superan {@code largoMaximo}, con el algoritmo package-merge
+     * (Larmore y Hirschberg) de {@link HuffmanTreeBuilder#codeLengths(long[], byte[], int)}. No construye el árbol.
+     *
+     * @param frecuencias Frecuencia de cada símbolo (el alfabeto puede tener cualquier tamaño).
+     * @param largoMaximo Largo máximo de un código, entre 1 y 64.
+     * @return El largo del código de cada símbolo, 0 para los que no aparecen.
+     * @throws IllegalArgumentException Si 2^largoMaximo es menor que la cantidad de símbolos que aparecen.
+     */
+    public static byte[] codeLengths(long[] frecuencias, int largoMaximo) {
+        byte[] largos = new byte[frecuencias.length];
+        new HuffmanTreeBuilder(Math.max(1, frecuencias.length)).codeLengths(frecuencias, largos, largoMaximo);
+        return largos;
+    }
+
     /**
      * Obtiene un iterador para recorrer el árbol de Huffman.
      *
@@ -0,0 +1,287 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * Construcción del código de Huffman sobre arreglos, reutilizable y sin crear objetos en cada llamada.
+ * <p>
+ * {@link HuffmanTree} crea un nodo por símbolo y por nodo interno y los ordena con una {@code PriorityQueue}; se
+ * conserva porque los formatos antiguos necesitan exactamente ese árbol para decodificar. Cuando sólo hacen falta los
+ * largos (código canónico), este constructor ordena las hojas una vez y luego mezcla dos colas: como los nodos
+ * internos se crean en orden creciente de peso, el menor de los que quedan está siempre al frente de la cola de
+ * hojas o de la de nodos internos, y el árbol se arma en tiempo lineal. El árbol queda en arreglos de padres y pesos,
+ * y la profundidad de cada hoja se obtiene recorriéndolos de la raíz hacia abajo.
+ * </p>
+ * <p>
+ * Si hay que limitar el largo de los códigos, {@link #codeLengths(long[], byte[], int)} aplica package-merge sobre
+ * las mismas hojas ordenadas, también con arreglos de primitivos.
+ * </p>
+ * <p>
+ * Todos los arreglos se reservan al crear el constructor (las listas de package-merge, la primera vez que se
+ * limita un código), así que reconstruir el código de cada bloque no genera basura. Un constructor no se puede usar
+ * desde varios hilos a la vez; {@link #porHilo()} entrega uno por hilo.
+ * </p>
+ */
+public final class HuffmanTreeBuilder {
+
+    /** Uno por hilo, con capacidad para los bytes y los símbolos de racha de {@link HuffmanBlock}. */
+    private static final ThreadLocal<HuffmanTreeBuilder> POR_HILO =
+            ThreadLocal.withInitial(() -> new HuffmanTreeBuilder(256 + HuffmanBlock.SIMBOLOS_RACHA));
+
+    /** Cantidad máxima de símbolos del alfabeto. */
+    private final int capacidad;
+
+    /** Bits con que se guarda el símbolo en la parte baja de {@link #orden}. */
+    private final int bitsSimbolo;
+
+    /** Hojas presentes como {@code (frecuencia << bitsSimbolo) | símbolo}, para ordenarlas como long. */
+    private final long[] orden;
+
+    /** Peso de cada nodo: primero las hojas en orden, luego los nodos internos en el orden en que se crean. */
+    private final long[] pesos;
+
+    /** Padre de cada nodo; al terminar, la profundidad de cada nodo. En package-merge, el largo de cada hoja. */
+    private final int[] padres;
+
+    /** Pesos de la lista anterior de package-merge, mientras {@link #pesos} guarda los de la lista actual. */
+    private final long[] pesosAnteriores;
+
+    /** Elementos de las listas de package-merge, una tras otra: el índice de la hoja, o -1 si es un paquete. */
+    private int[] listas = new int[0];
+
+    /** cantidad[l] es la cantidad de códigos de largo l. */
+    private final int[] cantidad = new int[CanonicalCode.MAX_LARGO + 1];
+
+    /** Siguiente código canónico libre de cada largo. */
+    private final long[] siguiente = new long[CanonicalCode.MAX_LARGO + 1];
+
+    /** Largos y códigos de los bytes de un bloque, que {@link HuffmanBlock} reutiliza en cada bloque del hilo. */
+    final byte[] largosBytes = new byte[256];
+    final long[] codigosBytes = new long[256];
+
+    /**
+     * Largos y códigos de los bytes y los símbolos de racha de un bloque, del tamaño de la capacidad. Son aparte de
+     * {@link #largosBytes} porque {@link HuffmanBlock} construye los dos códigos para elegir el que ocupa menos.
+     */
+    final byte[] largosRachas;
+    final long[] codigosRachas;
+
+    /**
+     * Crea un constructor para alfabetos de hasta {@code capacidad} símbolos.
+     *
+     * @param capacidad Cantidad máxima de símbolos, al menos 1.
+     * @throws IllegalArgumentException Si la capacidad no es positiva.
+     */
+    public HuffmanTreeBuilder(int capacidad) {
+        if (capacidad < 1) throw new IllegalArgumentException("capacidad inválida: " + capacidad);
+        this.capacidad = capacidad;
+        this.bitsSimbolo = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(capacidad - 1));
+        this.orden = new long[capacidad];
+        this.pesos = new long[2 * capacidad];
+        this.padres = new int[2 * capacidad];
+        this.pesosAnteriores = new long[2 * capacidad];
+        this.largosRachas = new byte[capacidad];
+        this.codigosRachas = new long[capacidad];
+    }
+
+    /**
+     * @return El constructor del hilo actual, con capacidad para {@code 256 + HuffmanBlock.SIMBOLOS_RACHA} símbolos.
+     */
+    public static HuffmanTreeBuilder porHilo() {
+        return POR_HILO.get();
+    }
+
+    /**
+     * Calcula el largo del código de Huffman de cada símbolo. Con un solo símbolo presente, su largo es 1.
+     *
+     * @param frecuencias Frecuencia de cada símbolo; a lo más {@code capacidad} símbolos.
+     * @param largos      Destino del largo de cada símbolo (0 si no aparece), del mismo tamaño o mayor.
+     * @return Los bits que ocupan todos los símbolos con esos largos (la suma de frecuencia × largo).
+     * @throws IllegalArgumentException Si el alfabeto supera la capacidad, {@code largos} es más corto o una
+     *                                  frecuencia es tan grande que no cabe junto al símbolo en un long.
+     * @throws IllegalStateException    Si algún código supera {@link CanonicalCode#MAX_LARGO} bits.
+     */
+    public long codeLengths(long[] frecuencias, byte[] largos) {
+        int n = hojas(frecuencias, largos);
+        if (n == 0) return 0;
+        int mascara = (1 << bitsSimbolo) - 1;
+        if (n == 1) { // una sola hoja: igual necesita un bit por símbolo
+            largos[(int) (orden[0] & mascara)] = 1;
+            return orden[0] >>> bitsSimbolo;
+        }
+        Arrays.sort(orden, 0, n); // por frecuencia y, en empate, por símbolo
+
+        // Dos colas: hojas [hoja, n) y nodos internos [interno, nuevo), ambas en orden creciente de peso
+        for (int i = 0; i < n; i++) pesos[i] = orden[i] >>> bitsSimbolo;
+        int hoja = 0, interno = n;
+        for (int nuevo = n; nuevo < 2 * n - 1; nuevo++) {
+            int a = hoja < n && (interno == nuevo || pesos[hoja] <= pesos[interno]) ? hoja++ : interno++;
+            int b = hoja < n && (interno == nuevo || pesos[hoja] <= pesos[interno]) ? hoja++ : interno++;
+            padres[a] = nuevo;
+            padres[b] = nuevo;
+            pesos[nuevo] = pesos[a] + pesos[b];
+        }
+
+        // El padre siempre tiene índice mayor: de la raíz hacia abajo, cada padre ya es una profundidad
+        padres[2 * n - 2] = 0;
+        for (int i = 2 * n - 3; i >= 0; i--) padres[i] = padres[padres[i]] + 1;
+
+        long bits = 0;
+        for (int i = 0; i < n; i++) {
+            int largo = padres[i];
+            if (largo > CanonicalCode.MAX_LARGO) throw new IllegalStateException("código de largo " + largo);
+            largos[(int) (orden[i] & mascara)] = (byte) largo;
+            bits += pesos[i] * largo;
+        }
+        return bits;
+    }
+
+    /**
+     * Calcula largos de código óptimos que no superan {@code largoMaximo}, con el algoritmo package-merge
+     * (Larmore y Hirschberg). No construye el árbol.
+     * <p>
+     * Se forman {@code largoMaximo} listas ordenadas por peso. La más profunda contiene sólo las hojas; cada una de
+     * las siguientes es la mezcla de las hojas con los "paquetes" que resultan de juntar de a dos los elementos de la
+     * lista anterior. De la última lista se eligen los 2n - 2 elementos más livianos, y el largo de cada símbolo es la
+     * cantidad de veces que su hoja aparece entre los elementos elegidos (directamente o dentro de un paquete). Como
+     * los paquetes se forman en orden, elegir los primeros p paquetes de una lista equivale a elegir los primeros 2p
+     * elementos de la lista anterior, así que basta con contar en cada lista.
+     * </p>
+     * <p>
+     * Cada lista tiene a lo más 2n elementos, así que se guardan una tras otra en un solo arreglo de enteros, que se
+     * reserva la primera vez y se conserva para las siguientes llamadas; de los pesos sólo hacen falta los de la
+     * lista anterior y la actual.
+     * </p>
+     *
+     * @param frecuencias Frecuencia de cada símbolo; a lo más {@code capacidad} símbolos.
+     * @param largos      Destino del largo de cada símbolo (0 si no aparece), del mismo tamaño o mayor.
+     * @param largoMaximo Largo máximo de un código, entre 1 y {@link CanonicalCode#MAX_LARGO}.
+     * @return Los bits que ocupan todos los símbolos con esos largos (la suma de frecuencia × largo).
+     * @throws IllegalArgumentException Si el alfabeto supera la capacidad, {@code largos} es más corto, una
+     *                                  frecuencia no cabe junto al símbolo en un long, el largo máximo está fuera de
+     *                                  rango o 2^largoMaximo es menor que la cantidad de símbolos que aparecen.
+     */
+    public long codeLengths(long[] frecuencias, byte[] largos, int largoMaximo) {
+        if (largoMaximo < 1 || largoMaximo > CanonicalCode.MAX_LARGO) {
+            throw new IllegalArgumentException("largo máximo fuera de rango: " + largoMaximo);
+        }
+        int n = hojas(frecuencias, largos);
+        if (n == 0) return 0;
+        if (largoMaximo < Long.SIZE - 1 && (1L << largoMaximo) < n) {
+            throw new IllegalArgumentException(n + " símbolos no caben en códigos de " + largoMaximo + " bits");
+        }
+        int mascara = (1 << bitsSimbolo) - 1;
+        if (n == 1) {
+            largos[(int) (orden[0] & mascara)] = 1;
+            return orden[0] >>> bitsSimbolo;
+        }
+        Arrays.sort(orden, 0, n); // por frecuencia y, en empate, por símbolo
+
+        // La lista j ocupa listas[j * ancho, j * ancho + tamano)
+        int ancho = 2 * n;
+        if (listas.length < largoMaximo * ancho) listas = new int[largoMaximo * ancho];
+        long[] anteriores = pesosAnteriores, actuales = pesos;
+        int base = (largoMaximo - 1) * ancho;
+        for (int i = 0; i < n; i++) {
+            anteriores[i] = orden[i] >>> bitsSimbolo;
+            listas[base + i] = i;
+        }
+        int tamano = n;
+        for (int j = largoMaximo - 2; j >= 0; j--) {
+            base = j * ancho;
+            int paquetes = tamano / 2;
+            int h = 0, p = 0, k = 0;
+            while (h < n || p < paquetes) {
+                long pesoPaquete = p < paquetes ? anteriores[2 * p] + anteriores[2 * p + 1] : Long.MAX_VALUE;
+                if (h < n && orden[h] >>> bitsSimbolo <= pesoPaquete) {
+                    actuales[k] = orden[h] >>> bitsSimbolo;
+                    listas[base + k++] = h++;
+                } else {
+                    actuales[k] = pesoPaquete;
+                    listas[base + k++] = -1;
+                    p++;
+                }
+            }
+            long[] intercambio = anteriores;
+            anteriores = actuales;
+            actuales = intercambio;
+            tamano = k;
+        }
+
+        // Se eligen los 2n - 2 primeros elementos de la última lista y se bajan los paquetes elegidos
+        Arrays.fill(padres, 0, n, 0);
+        int elegidos = 2 * n - 2;
+        for (int j = 0; j < largoMaximo && elegidos > 0; j++) {
+            base = j * ancho;
+            int paquetesElegidos = 0;
+            for (int k = 0; k < elegidos; k++) {
+                int hoja = listas[base + k];
+                if (hoja >= 0) padres[hoja]++;
+                else paquetesElegidos++;
+            }
+            elegidos = 2 * paquetesElegidos;
+        }
+
+        long bits = 0;
+        for (int i = 0; i < n; i++) {
+            largos[(int) (orden[i] & mascara)] = (byte) padres[i];
+            bits += (orden[i] >>> bitsSimbolo) * padres[i];
+        }
+        return bits;
+    }
+
+    /**
+     * Valida los arreglos, pone en 0 los largos y guarda en {@link #orden} las hojas presentes, sin ordenarlas.
+     *
+     * @return La cantidad de símbolos presentes.
+     */
+    private int hojas(long[] frecuencias, byte[] largos) {
+        if (frecuencias.length > capacidad) {
+            throw new IllegalArgumentException("alfabeto de " + frecuencias.length + " > " + capacidad);
+        }
+        if (largos.length < frecuencias.length) throw new IllegalArgumentException("largos demasiado corto");
+        Arrays.fill(largos, 0, frecuencias.length, (byte) 0);
+        long limite = Long.MAX_VALUE >>> bitsSimbolo;
+        int n = 0;
+        for (int s = 0; s < frecuencias.length; s++) {
+            long frecuencia = frecuencias[s];
+            if (frecuencia <= 0) continue;
+            if (frecuencia > limite) throw new IllegalArgumentException("frecuencia demasiado grande: " + frecuencia);
+            orden[n++] = (frecuencia << bitsSimbolo) | s;
+        }
+        return n;
+    }
+
+    /**
+     * Asigna los códigos canónicos a partir de los largos, en el mismo orden que {@link CanonicalCode}: por largo y,
+     * dentro de cada largo, por símbolo.
+     *
+     * @param largos  Largo del código de cada símbolo, 0 si no aparece; deben formar un código prefijo.
+     * @param codigos Destino del código de cada símbolo, alineado a la derecha; del mismo tamaño o mayor.
+     * @throws IllegalArgumentException Si {@code codigos} es más corto o los largos no forman un código prefijo.
+     */
+    public void codes(byte[] largos, long[] codigos) {
+        if (codigos.length < largos.length) throw new IllegalArgumentException("codigos demasiado corto");
+        Arrays.fill(cantidad, 0);
+        int presentes = 0;
+        for (byte largo : largos) {
+            if (largo == 0) continue;
+            if ((largo & 0xFF) > CanonicalCode.MAX_LARGO) throw new IllegalArgumentException("largo " + largo);
+            cantidad[largo & 0xFF]++;
+            presentes++;
+        }
+        long disponibles = 1; // desigualdad de Kraft, igual que en CanonicalCode
+        long codigo = 0;
+        for (int l = 1; l <= CanonicalCode.MAX_LARGO; l++) {
+            disponibles = (disponibles << 1) - cantidad[l];
+            if (disponibles < 0) throw new IllegalArgumentException("los largos no forman un código prefijo");
+            if (disponibles > presentes) disponibles = presentes;
+            codigo = (codigo + cantidad[l - 1]) << 1;
+            siguiente[l] = codigo;
+        }
+        for (int s = 0; s < largos.length; s++) {
+            int l = largos[s] & 0xFF;
+            codigos[s] = l == 0 ? 0 : siguiente[l]++;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lectura de bits desde un archivo proyectado en memoria ({@link FileChannel#map}).
+ * <p>
+ * A diferencia de {@link FileBufferedBitReader} no hay buffer intermedio ni llamadas al sistema por cada lectura:
+ * los bytes se leen directamente de las páginas del archivo. La posición se lleva en bits y se puede mover con
+ * {@link #seek(long)}, lo que permite tanto lectura secuencial como acceso aleatorio. Como las proyecciones son de
+ * sólo lectura, varios lectores pueden compartir un mismo canal desde distintos hilos.
+ * </p>
+ * <p>
+ * Una proyección no puede superar los 2 GB, así que los archivos más grandes se proyectan en segmentos de
+ * {@link #SEGMENTO} bytes. Cada segmento incluye además los 7 bytes siguientes, para que siempre se pueda leer un
+ * long completo sin cruzar de segmento.
+ * </p>
+ */
+public class MappedBitReader implements BitReader {
+
+    /** Bytes de archivo que cubre cada segmento proyectado. */
+    static final int SEGMENTO = 1 << 30;
+
+    /** Segmentos proyectados, el segmento k comienza en el byte k × SEGMENTO. */
+    final MappedByteBuffer[] segmentos;
+
+    /** Cantidad de bytes proyectados. */
+    final long largo;
+
+    /** Posición actual, en bits desde el comienzo de la proyección. */
+    long posicion;
+
+    /**
+     * Proyecta un archivo completo.
+     *
+     * @param inputFileName Nombre del archivo de entrada.
+     * @throws IOException Si el archivo no existe o no se puede proyectar.
+     */
+    public MappedBitReader(String inputFileName) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ)) {
+            this.largo = canal.size();
+            this.segmentos = proyectar(canal, 0, largo);
+        } // la proyección sigue siendo válida después de cerrar el canal
+    }
+
+    /**
+     * Proyecta una región de un archivo ya abierto; la posición 0 del lector es el byte {@code desde} del archivo.
+     *
+     * @param canal Canal del archivo, no se cierra al cerrar el lector.
+     * @param desde Posición de la región en el archivo.
+     * @param largo Cantidad de bytes de la región.
+     * @throws IOException Si la región no se puede proyectar.
+     */
+    public MappedBitReader(FileChannel canal, long desde, long largo) throws IOException {
+        this.largo = largo;
+        this.segmentos = proyectar(canal, desde, largo);
+    }
+
+    private static MappedByteBuffer[] proyectar(FileChannel canal, long desde, long largo) throws IOException {
+        MappedByteBuffer[] out = new MappedByteBuffer[(int) ((largo + SEGMENTO - 1) / SEGMENTO)];
+        for (int k = 0; k < out.length; k++) {
+            long inicio = (long) k * SEGMENTO;
+            long tamano = Math.min(largo - inicio, (long) SEGMENTO + Long.BYTES - 1);
+            out[k] = canal.map(FileChannel.MapMode.READ_ONLY, desde + inicio, tamano);
+        }
+        return out;
+    }
+
+    /**
+     * @return La posición actual en bits.
+     */
+    public long position() {
+        return posicion;
+    }
+
+    /**
+     * Mueve la posición de lectura.
+     *
+     * @param bit Nueva posición, en bits desde el comienzo.
+     */
+    public void seek(long bit) {
+        if (bit < 0) throw new IndexOutOfBoundsException("bit < 0: " + bit);
+        posicion = bit;
+    }
+
+    /**
+     * @return Cantidad de bytes proyectados.
+     */
+    public long length() {
+        return largo;
+    }
+
+    /**
+     * Lee 8 bytes a partir de {@code indice} como un long, completando con ceros después del final.
+     */
+    private long ventana(long indice) {
+        if (indice >= largo) return 0;
+        MappedByteBuffer segmento = segmentos[(int) (indice / SEGMENTO)];
+        int desplazamiento = (int) (indice % SEGMENTO);
+        if (desplazamiento + Long.BYTES <= segmento.limit()) return segmento.getLong(desplazamiento);
+        long out = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            int j = desplazamiento + i;
+            out = (out << 8) | (j < segmento.limit() ? segmento.get(j) & 0xFF : 0);
+        }
+        return out;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return (posicion + 7) >>> 3 < largo;
+    }
+
+    @Override
+    public byte nextByte() throws IOException {
+        long indice = (posicion + 7) >>> 3; // un byte leído a medias se descarta
+        if (indice >= largo) throw new IOException("No more byte to read");
+        posicion = (indice + 1) << 3;
+        return (byte) (ventana(indice) >>> (Long.SIZE - Byte.SIZE));
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        long indice = (posicion + 7) >>> 3;
+        if (indice + Long.BYTES > largo) throw new IOException("No more byte to read");
+        posicion = (indice + Long.BYTES) << 3;
+        return ventana(indice);
+    }
+
+    @Override
+    public void nextBytes(byte[] destino, int desde, int cantidad) throws IOException {
+        long indice = (posicion + 7) >>> 3;
+        if (indice + cantidad > largo) throw new IOException("No more byte to read");
+        posicion = (indice + cantidad) << 3;
+        while (cantidad > 0) { // un tramo por segmento
+            MappedByteBuffer segmento = segmentos[(int) (indice / SEGMENTO)];
+            int desplazamiento = (int) (indice % SEGMENTO);
+            int tramo = Math.min(cantidad, SEGMENTO - desplazamiento);
+            segmento.get(desplazamiento, destino, desde, tramo);
+            indice += tramo;
+            desde += tramo;
+            cantidad -= tramo;
+        }
+    }
+
+    @Override
+    public boolean nextBit() throws IOException {
+        if (posicion >>> 3 >= largo) throw new IOException("No more bits to read");
+        boolean out = ventana(posicion >>> 3) << (posicion & 7) < 0;
+        posicion++;
+        return out;
+    }
+
+    @Override
+    public long peekBits(int n) {
+        if (n == 0) return 0;
+        return (ventana(posicion >>> 3) << (posicion & 7)) >>> (Long.SIZE - n);
+    }
+
+    @Override
+    public void skipBits(int n) {
+        posicion += n;
+    }
+
+    /**
+     * No hay nada que liberar explícitamente: la proyección se libera cuando el recolector de basura la descarta.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,174 @@
+package huffman;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Flujo de entrada con una etapa de lectura anticipada: un hilo propio lee la entrada en buffers mientras quien
+ * consume el flujo procesa los anteriores.
+ * <p>
+ * Sin esta etapa, el codificador alterna entre esperar al disco y calcular códigos, y en discos mecánicos o
+ * archivos montados por red el tiempo total es la suma de ambos. Con ella, la lectura del buffer siguiente se
+ * superpone con el procesamiento del actual, y el tiempo se acerca al mayor de los dos.
+ * </p>
+ * <p>
+ * Los buffers se reutilizan: hay una cantidad fija que circula entre dos colas acotadas, la de libres y la de
+ * llenos. Si el consumidor se atrasa, el lector se detiene al no encontrar buffers libres, así que la memoria usada
+ * es siempre {@code buffers × tamanoBuffer}. Un error de lectura se entrega al consumidor cuando llega a ese punto
+ * del flujo.
+ * </p>
+ */
+public class PrefetchInputStream extends InputStream {
+
+    /** Tamaño por defecto de cada buffer: 64 KB. */
+    static final int TAMANO_BUFFER = 64 * 1024;
+
+    /** Cantidad por defecto de buffers: mientras se consume uno, el lector puede llenar los demás. */
+    static final int BUFFERS = 4;
+
+    /** Marca que el lector deja en la cola de llenos al terminar la entrada o al fallar. */
+    private static final ByteBuffer FIN = ByteBuffer.allocate(0);
+
+    /** Entrada de la que lee el hilo lector. */
+    private final InputStream entrada;
+
+    /** Buffers vacíos, listos para que el lector los llene. */
+    private final BlockingQueue<ByteBuffer> libres;
+
+    /** Buffers llenos, en el orden de la entrada, y al final {@link #FIN}. */
+    private final BlockingQueue<ByteBuffer> llenos;
+
+    /** Hilo de la etapa de lectura. */
+    private final Thread lector;
+
+    /** Error de lectura, que se lanza al consumidor después del último buffer leído. */
+    private volatile IOException error;
+
+    /** Buffer que se está entregando al consumidor, null si hay que tomar el siguiente. */
+    private ByteBuffer actual;
+
+    /** Si ya se llegó a {@link #FIN}. */
+    private boolean terminado;
+
+    /**
+     * Crea el flujo con {@link #BUFFERS} buffers de {@link #TAMANO_BUFFER} bytes y comienza a leer la entrada.
+     *
+     * @param entrada Entrada a leer, que se cierra al cerrar este flujo.
+     */
+    public PrefetchInputStream(InputStream entrada) {
+        this(entrada, TAMANO_BUFFER, BUFFERS);
+    }
+
+    /**
+     * Crea el flujo y comienza a leer la entrada de inmediato.
+     *
+     * @param entrada      Entrada a leer, que se cierra al cerrar este flujo.
+     * @param tamanoBuffer Tamaño de cada buffer en bytes.
+     * @param buffers      Cantidad de buffers, al menos 2 para que lectura y consumo se superpongan.
+     * @throws IllegalArgumentException Si el tamaño o la cantidad de buffers no son positivos.
+     */
+    public PrefetchInputStream(InputStream entrada, int tamanoBuffer, int buffers) {
+        if (tamanoBuffer < 1 || buffers < 1) {
+            throw new IllegalArgumentException("buffers inválidos: " + buffers + " × " + tamanoBuffer);
+        }
+        this.entrada = entrada;
+        this.libres = new ArrayBlockingQueue<>(buffers);
+        this.llenos = new ArrayBlockingQueue<>(buffers + 1); // siempre cabe la marca de fin
+        for (int i = 0; i < buffers; i++) libres.add(ByteBuffer.allocate(tamanoBuffer));
+        this.lector = new Thread(this::leer, "huffman-lectura");
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    /**
+     * Ciclo del hilo lector: llena buffers libres hasta que la entrada termina, falla o se cierra el flujo.
+     */
+    private void leer() {
+        try {
+            while (true) {
+                ByteBuffer buffer = libres.take();
+                buffer.clear();
+                int leidos = entrada.readNBytes(buffer.array(), 0, buffer.capacity());
+                buffer.limit(leidos);
+                if (leidos > 0) llenos.put(buffer);
+                if (leidos < buffer.capacity()) break; // fin de la entrada
+            }
+        } catch (InterruptedException e) {
+            // se cerró el flujo: nadie espera más buffers
+        } catch (Throwable e) { // sin el error, el consumidor tomaría la marca de fin como el final de la entrada
+            error = e instanceof IOException io ? io : new IOException("Error de lectura", e);
+        } finally {
+            llenos.offer(FIN);
+        }
+    }
+
+    /**
+     * Se asegura de que {@link #actual} tenga bytes por entregar, devolviendo el buffer agotado al lector.
+     *
+     * @return false si la entrada terminó.
+     * @throws IOException Si la lectura falló o el hilo fue interrumpido mientras esperaba.
+     */
+    private boolean hayBytes() throws IOException {
+        if (actual != null && actual.hasRemaining()) return true;
+        if (terminado) return false;
+        if (actual != null) {
+            libres.add(actual); // hay espacio: sólo circulan los buffers creados al comienzo
+            actual = null;
+        }
+        try {
+            actual = llenos.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lectura interrumpida");
+        }
+        if (actual == FIN) {
+            actual = null;
+            terminado = true;
+            if (error != null) throw error;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return hayBytes() ? actual.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) return 0;
+        if (!hayBytes()) return -1;
+        int n = Math.min(len, actual.remaining());
+        actual.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return actual != null ? actual.remaining() : 0;
+    }
+
+    /**
+     * Detiene el hilo lector, espera a que termine y cierra la entrada.
+     *
+     * @throws IOException Si ocurre un error al cerrar la entrada.
+     */
+    @Override
+    public void close() throws IOException {
+        lector.interrupt();
+        try {
+            lector.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            entrada.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package huffman;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos de prueba generados con semilla fija, elegidos para recorrer los modos del compresor: vacíos, un solo byte
+ * (bloques constantes), texto, bytes uniformes (bloques sin codificar), rachas largas y todos los bytes más rachas
+ * (más de 256 símbolos, para limitar el largo de los códigos con rachas).
+ */
+final class Corpus {
+
+    /** Nombres de los corpus, en el orden en que se prueban. */
+    static final List<String> NOMBRES = List.of("vacio", "unico", "texto", "aleatorio", "rachas", "todos");
+
+    /** Largo de los corpus no vacíos: varios bloques de {@link #BLOQUE} bytes. */
+    static final int LARGO = 200_000;
+
+    /** Tamaño de bloque de las pruebas, para que cada corpus tenga varios bloques y uno incompleto. */
+    static final int BLOQUE = 1 << 16;
+
+    private Corpus() {
+    }
+
+    /**
+     * @param nombre Uno de {@link #NOMBRES}.
+     * @return Los bytes del corpus.
+     * @throws IllegalArgumentException Si el nombre no es un corpus conocido.
+     */
+    static byte[] generar(String nombre) {
+        Random random = new Random(42);
+        byte[] out = new byte[LARGO];
+        switch (nombre) {
+            case "vacio" -> out = new byte[0];
+            case "unico" -> Arrays.fill(out, (byte) 'a');
+            case "texto" -> {
+                byte[] texto = ("En un lugar de la Mancha, de cuyo nombre no quiero acordarme, no ha mucho tiempo "
+                        + "que vivía un hidalgo de los de lanza en astillero, adarga antigua, rocín flaco y galgo "
+                        + "corredor.\n").getBytes(StandardCharsets.UTF_8);
+                for (int i = 0; i < LARGO; i++) out[i] = texto[(i + random.nextInt(3)) % texto.length];
+            }
+            case "aleatorio" -> random.nextBytes(out);
+            case "rachas" -> {
+                int i = 0;
+                while (i < LARGO) {
+                    int fin = Math.min(LARGO, i + 1 + random.nextInt(2000));
+                    byte b = (byte) random.nextInt(4);
+                    while (i < fin) out[i++] = b;
+                }
+            }
+            case "todos" -> { // bytes geométricos, con los 256 presentes, y rachas de muchos largos
+                int i = 0;
+                for (; i < 256; i++) out[i] = (byte) i;
+                while (i < LARGO) {
+                    byte b = (byte) Math.min(255, (int) (Math.log(1 - random.nextDouble()) / Math.log(0.7)));
+                    int fin = Math.min(LARGO, i + (random.nextInt(8) == 0 ? 5 + random.nextInt(3000) : 1));
+                    while (i < fin) out[i++] = b;
+                }
+            }
+            default -> throw new IllegalArgumentException("corpus desconocido: " + nombre);
+        }
+        return out;
+    }
+
+    /**
+     * Escribe el corpus en un archivo del directorio.
+     *
+     * @return La ruta del archivo, con el nombre del corpus.
+     */
+    static Path escribir(Path directorio, String nombre) throws IOException {
+        return Files.write(directorio.resolve(nombre), generar(nombre));
+    }
+}
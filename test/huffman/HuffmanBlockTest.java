@@ -0,0 +1,103 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Bloques de {@link HuffmanBlock}, en particular el límite de largo con el alfabeto de rachas, que tiene más
+ * símbolos de los que caben en códigos de 8 bits.
+ */
+class HuffmanBlockTest {
+
+    private static final int FLAGS = HuffmanFormat.FLAG_CRC | HuffmanFormat.FLAG_CRUDO | HuffmanFormat.FLAG_RACHAS;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void limiteSeElevaConMasDe256Simbolos() {
+        long[] frecuencias = HuffmanTreeBuilderTest.fibonacci(256 + HuffmanBlock.SIMBOLOS_RACHA);
+        byte[] largos = new byte[frecuencias.length];
+        long[] codigos = new long[frecuencias.length];
+        long extra = HuffmanBlock.codigoPara(frecuencias, 8, largos, codigos);
+
+        assertEquals(9, HuffmanTreeBuilderTest.maximo(largos)); // 287 símbolos necesitan 9 bits
+        HuffmanTreeBuilderTest.assertKraftIgual(largos);
+        long optimo = new HuffmanTreeBuilder(frecuencias.length).codeLengths(frecuencias, new byte[largos.length]);
+        assertEquals(HuffmanTree.costoEnBits(frecuencias, largos) - optimo, extra);
+        assertTrue(extra > 0);
+
+        LongAdder bitsExtra = new LongAdder();
+        CanonicalCode codigo = HuffmanBlock.codigoPara(frecuencias, 8, bitsExtra);
+        assertEquals(extra, bitsExtra.sum());
+        for (int s = 0; s < largos.length; s++) {
+            assertEquals(largos[s], codigo.length(s));
+            assertEquals(codigos[s], codigo.code(s));
+        }
+    }
+
+    @Test
+    void sinExcederElLimiteNoHayBitsExtra() {
+        long[] frecuencias = HuffmanTreeBuilderTest.fibonacci(10);
+        byte[] largos = new byte[frecuencias.length];
+        assertEquals(0, HuffmanBlock.codigoPara(frecuencias, 9, largos, new long[largos.length]));
+        assertEquals(9, HuffmanTreeBuilderTest.maximo(largos));
+    }
+
+    @Test
+    void rachasConLimiteDe8Bits() throws IOException {
+        byte[] datos = Corpus.generar("todos");
+        LongAdder bitsExtra = new LongAdder();
+        byte[] comprimido = HuffmanBlock.comprimir(datos, 0, datos.length, 8, 1, FLAGS, bitsExtra);
+        assertTrue(bitsExtra.sum() > 0);
+        assertEquals(HuffmanBlock.MODO_RACHAS, comprimido[2 * Integer.BYTES]);
+        assertArrayEquals(datos, descomprimir(comprimido));
+    }
+
+    @Test
+    void encodeParaleloConRachasYLimiteDe8Bits() throws IOException {
+        Path original = Corpus.escribir(directorio, "todos");
+        Path comprimido = directorio.resolve("todos.huf");
+        HuffmanEncoder encoder = new HuffmanEncoder(original.toString(), comprimido.toString());
+        encoder.setRachas(true);
+        encoder.setLargoMaximo(8);
+        encoder.encodeParalelo(Corpus.BLOQUE);
+        assertTrue(encoder.getBitsPorLimite() > 0);
+
+        Path salida = directorio.resolve("todos.out");
+        new HuffmanDecoder(comprimido.toString(), salida.toString()).decode();
+        assertArrayEquals(Files.readAllBytes(original), Files.readAllBytes(salida));
+    }
+
+    @Test
+    void eligeElModoPorElHistograma() throws IOException {
+        for (String nombre : new String[]{"unico", "aleatorio", "texto", "rachas"}) {
+            byte[] datos = Corpus.generar(nombre);
+            byte[] comprimido = HuffmanBlock.comprimir(datos, 0, datos.length, 0, 1, FLAGS, new LongAdder());
+            int esperado = switch (nombre) {
+                case "unico" -> HuffmanBlock.MODO_CONSTANTE;
+                case "aleatorio" -> HuffmanBlock.MODO_CRUDO;
+                case "texto" -> HuffmanBlock.MODO_BYTES;
+                default -> HuffmanBlock.MODO_RACHAS;
+            };
+            assertEquals(esperado, comprimido[2 * Integer.BYTES], nombre);
+            assertArrayEquals(datos, descomprimir(comprimido), nombre);
+        }
+    }
+
+    private static byte[] descomprimir(byte[] comprimido) throws IOException {
+        try (BitReader reader = new FileBufferedBitReader(new ByteArrayInputStream(comprimido), 4096)) {
+            return HuffmanBlock.descomprimir(reader, new HuffmanTableCache(4), FLAGS);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Archivos dañados o truncados: el CRC32C de los bloques y las comprobaciones de los índices deben rechazarlos con
+ * {@link IOException}, nunca entregar datos equivocados ni fallar con otra excepción.
+ */
+class HuffmanDecoderTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void crcDetectaCadaByteDanadoDeLosBloques() throws IOException {
+        byte[] comprimido = comprimirBloques("texto");
+        long indice = ByteBuffer.wrap(comprimido).getLong(comprimido.length - Long.BYTES);
+        for (int posicion = 9; posicion < indice; posicion += 1009) { // después de la cabecera y el tamaño de bloque
+            Path danado = escribir(danar(comprimido, posicion));
+            assertThrows(IOException.class, () -> new HuffmanDecoder(danado.toString(), null).verify(),
+                    "byte " + posicion);
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> new HuffmanDecoder(danado.toString(), directorio.resolve("salida").toString()).decode());
+            assertInstanceOf(IOException.class, e.getCause(), "byte " + posicion);
+        }
+    }
+
+    @Test
+    void rangoDeUnBloqueDanado() throws IOException {
+        byte[] comprimido = comprimirBloques("texto");
+        Path danado = escribir(danar(comprimido, 200));
+        HuffmanDecoder decoder = new HuffmanDecoder(danado.toString(), null);
+        assertThrows(IOException.class, () -> decoder.decodeRange(10, 100));
+        byte[] datos = Corpus.generar("texto");
+        assertArrayEquals(Arrays.copyOfRange(datos, Corpus.BLOQUE, Corpus.BLOQUE + 100),
+                decoder.decodeRange(Corpus.BLOQUE, 100)); // los demás bloques siguen sanos
+    }
+
+    @Test
+    void bloquesTruncados() throws IOException {
+        byte[] comprimido = comprimirBloques("rachas");
+        for (int largo = 0; largo < comprimido.length; largo += 37) {
+            Path truncado = escribir(Arrays.copyOf(comprimido, largo));
+            if (largo == 0) continue; // un archivo vacío son datos vacíos
+            assertThrows(IOException.class, () -> new HuffmanDecoder(truncado.toString(), null).verify(),
+                    "largo " + largo);
+        }
+    }
+
+    @Test
+    void indiceDeBloquesDanado() throws IOException {
+        byte[] comprimido = comprimirBloques("texto");
+        int fin = comprimido.length - Long.BYTES;
+        int indice = (int) ByteBuffer.wrap(comprimido).getLong(fin);
+        byte[][] danados = {
+                conLong(comprimido, fin, comprimido.length), // posición del índice fuera del archivo
+                conLong(comprimido, fin, -1),
+                conInt(comprimido, indice, 1000), // cantidad de bloques
+                conLong(comprimido, indice + Integer.BYTES, comprimido.length + 100), // posición del primer bloque
+        };
+        for (byte[] danado : danados) {
+            Path archivo = escribir(danado);
+            assertThrows(IOException.class, () -> new HuffmanDecoder(archivo.toString(), null).verify());
+            assertThrows(IOException.class, () -> new HuffmanDecoder(archivo.toString(), null).decodeRange(0, 10));
+        }
+
+        // el largo original del índice se compara con el del bloque; un rango usa el del bloque, que cubre el CRC
+        Path largo = escribir(conInt(comprimido, indice + Integer.BYTES + Long.BYTES, 5));
+        assertThrows(IOException.class, () -> new HuffmanDecoder(largo.toString(), null).verify());
+        assertArrayEquals(Arrays.copyOf(Corpus.generar("texto"), 10),
+                new HuffmanDecoder(largo.toString(), null).decodeRange(0, 10));
+    }
+
+    @Test
+    void flujoDanadoOTruncado() throws IOException {
+        byte[] datos = Corpus.generar("todos");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new HuffmanOutputStream(bytes, Corpus.BLOQUE, 4, true)) {
+            output.write(datos);
+        }
+        byte[] comprimido = bytes.toByteArray();
+        for (int posicion = 5; posicion < comprimido.length; posicion += 101) {
+            byte[] danado = danar(comprimido, posicion);
+            assertThrows(IOException.class, () -> leerFlujo(danado), "byte " + posicion);
+        }
+        for (int largo = 5; largo < comprimido.length; largo += 97) {
+            byte[] truncado = Arrays.copyOf(comprimido, largo);
+            assertThrows(IOException.class, () -> leerFlujo(truncado), "largo " + largo);
+        }
+    }
+
+    @Test
+    void indiceDePuntosDeControlDanado() throws IOException {
+        Path original = Corpus.escribir(directorio, "texto");
+        Path archivo = directorio.resolve("texto.huf");
+        HuffmanEncoder encoder = new HuffmanEncoder(original.toString(), archivo.toString());
+        encoder.setIntervaloIndice(4096);
+        encoder.encode();
+        byte[] comprimido = Files.readAllBytes(archivo);
+        int fin = comprimido.length - Long.BYTES;
+        int indice = (int) ByteBuffer.wrap(comprimido).getLong(fin);
+        byte[][] danados = {
+                conLong(comprimido, fin, comprimido.length), // posición del índice fuera del archivo
+                conLong(comprimido, fin, -1),
+                conInt(comprimido, indice, 0), // intervalo
+                conInt(comprimido, indice + Integer.BYTES, 3), // cantidad de puntos
+                conLong(comprimido, indice + 2 * Integer.BYTES + 5 * Long.BYTES, 8L * comprimido.length), // punto 5
+                conLong(comprimido, indice + 2 * Integer.BYTES + 5 * Long.BYTES, 0),
+                Arrays.copyOf(comprimido, fin), // sin la posición del índice
+                Arrays.copyOf(comprimido, indice + 20),
+        };
+        for (byte[] danado : danados) {
+            Path rango = escribir(danado);
+            assertThrows(IOException.class, () -> new HuffmanDecoder(rango.toString(), null)
+                    .decodeRange(5 * 4096 + 10, 100));
+        }
+
+        // sin el índice, el archivo truncado tampoco se puede verificar
+        Path truncado = escribir(Arrays.copyOf(comprimido, indice / 2));
+        assertThrows(IOException.class, () -> new HuffmanDecoder(truncado.toString(), null).verify());
+    }
+
+    @Test
+    void archivoConEntradaDanada() throws IOException {
+        Path entrada = Corpus.escribir(directorio, "texto");
+        Path contenedor = directorio.resolve("corpus.har");
+        HuffmanArchive.crear(contenedor.toString(), List.of(entrada.toString()),
+                ForkJoinPool.commonPool());
+        byte[] comprimido = Files.readAllBytes(contenedor);
+        Path danado = escribir(danar(comprimido, 1000));
+        IOException e = assertThrows(IOException.class, () -> new HuffmanDecoder(danado.toString(), null).verify());
+        assertTrue(e.getMessage() != null);
+    }
+
+    private byte[] comprimirBloques(String nombre) throws IOException {
+        Path original = Corpus.escribir(directorio, nombre);
+        Path comprimido = directorio.resolve(nombre + ".huf");
+        new HuffmanEncoder(original.toString(), comprimido.toString()).encodeParalelo(Corpus.BLOQUE);
+        return Files.readAllBytes(comprimido);
+    }
+
+    private Path escribir(byte[] datos) throws IOException {
+        return Files.write(directorio.resolve("danado.huf"), datos);
+    }
+
+    private static byte[] leerFlujo(byte[] comprimido) throws IOException {
+        try (InputStream input = new HuffmanInputStream(new ByteArrayInputStream(comprimido), Corpus.BLOQUE)) {
+            return input.readAllBytes();
+        }
+    }
+
+    /** Copia con todos los bits de un byte invertidos. */
+    private static byte[] danar(byte[] datos, int posicion) {
+        byte[] out = datos.clone();
+        out[posicion] ^= (byte) 0xFF;
+        return out;
+    }
+
+    private static byte[] conInt(byte[] datos, int posicion, int valor) {
+        byte[] out = datos.clone();
+        ByteBuffer.wrap(out).putInt(posicion, valor);
+        return out;
+    }
+
+    private static byte[] conLong(byte[] datos, int posicion, long valor) {
+        byte[] out = datos.clone();
+        ByteBuffer.wrap(out).putLong(posicion, valor);
+        return out;
+    }
+}
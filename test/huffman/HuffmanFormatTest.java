@@ -0,0 +1,309 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Ida y vuelta de cada versión del formato y de cada flag (ver {@link HuffmanFormat}) con todos los {@link Corpus}:
+ * lo que se comprime se debe descomprimir igual, completo y por rangos.
+ */
+class HuffmanFormatTest {
+
+    @TempDir
+    Path directorio;
+
+    static Stream<String> corpus() {
+        return Corpus.NOMBRES.stream();
+    }
+
+    /** Cada corpus con subflujos (1 o 4), rachas y largo máximo (0 o 8), para las versiones 3 y 4. */
+    static Stream<Arguments> bloques() {
+        List<Arguments> out = new ArrayList<>();
+        for (String nombre : Corpus.NOMBRES) {
+            for (int subflujos : new int[]{1, 4}) {
+                for (boolean rachas : new boolean[]{false, true}) {
+                    for (int largoMaximo : new int[]{0, 8}) {
+                        out.add(Arguments.of(nombre, subflujos, rachas, largoMaximo));
+                    }
+                }
+            }
+        }
+        return out.stream();
+    }
+
+    @Test
+    void version0Ascii() throws IOException {
+        byte[] datos = new byte[2000]; // cada frecuencia se escribe en 8 caracteres, así que debe ser menor que 256
+        Random random = new Random(42);
+        for (int i = 0; i < datos.length; i++) datos[i] = (byte) ('a' + random.nextInt(26));
+        long[] frecuencias = frecuencias(datos);
+        String[] tabla = HuffmanTree.of(frecuencias).encodeTable();
+        StringBuilder archivo = new StringBuilder();
+        for (long frecuencia : frecuencias) {
+            archivo.append(String.format("%8s", Long.toBinaryString(frecuencia)).replace(' ', '0'));
+        }
+        StringBuilder bits = new StringBuilder();
+        for (byte b : datos) bits.append(tabla[b & 0xFF]);
+        archivo.append('|').append(String.format("%32s", Integer.toBinaryString(bits.length())).replace(' ', '0'));
+        archivo.append('|').append(bits);
+        Path comprimido = Files.writeString(directorio.resolve("ascii.huf"), archivo, StandardCharsets.US_ASCII);
+
+        assertEquals(HuffmanFormat.VERSION_ASCII, HuffmanFormat.detectarVersion(comprimido.toString()));
+        assertArrayEquals(datos, decodificar(comprimido));
+    }
+
+    @Test
+    void version1Frecuencias() throws IOException {
+        byte[] datos = Corpus.generar("texto");
+        long[] frecuencias = frecuencias(datos);
+        String[] tabla = HuffmanTree.of(frecuencias).encodeTable();
+        Path comprimido = directorio.resolve("frecuencias.huf");
+        try (FileBufferedBitWriter writer = new FileBufferedBitWriter(comprimido.toString())) {
+            HuffmanFormat.escribirCabecera(writer, HuffmanFormat.VERSION_FRECUENCIAS, 0);
+            writer.write((long) datos.length);
+            for (long frecuencia : frecuencias) writer.write(frecuencia);
+            for (byte b : datos) writer.write(tabla[b & 0xFF]);
+        }
+
+        assertEquals(HuffmanFormat.VERSION_FRECUENCIAS, HuffmanFormat.detectarVersion(comprimido.toString()));
+        assertArrayEquals(datos, decodificar(comprimido));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2Canonica(String nombre) throws IOException {
+        Path comprimido = idaYVuelta(nombre, HuffmanEncoder::encode);
+        if (nombre.equals("aleatorio") || nombre.equals("unico")) { // sin codificar o un solo byte repetido
+            assertEquals(HuffmanFormat.FLAG_CRUDO, flags(comprimido));
+        }
+        new HuffmanDecoder(comprimido.toString(), null).verify();
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2ConIndice(String nombre) throws IOException {
+        Path comprimido = idaYVuelta(nombre, encoder -> {
+            encoder.setIntervaloIndice(4096);
+            encoder.encode();
+        });
+        if (nombre.equals("texto")) assertEquals(HuffmanFormat.FLAG_INDICE, flags(comprimido));
+        comprobarRangos(comprimido, Corpus.generar(nombre));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2ConMuestra(String nombre) throws IOException {
+        idaYVuelta(nombre, encoder -> {
+            encoder.setMuestra(8192, 4);
+            encoder.encode();
+        });
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2ConLargoMaximo(String nombre) throws IOException {
+        idaYVuelta(nombre, encoder -> {
+            encoder.setLargoMaximo(8);
+            encoder.encode();
+        });
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2Adaptativo(String nombre) throws IOException {
+        Path comprimido = idaYVuelta(nombre, HuffmanEncoder::encodeAdaptativo);
+        if (!nombre.equals("vacio")) assertEquals(HuffmanFormat.FLAG_ADAPTATIVO, flags(comprimido));
+        comprobarRangos(comprimido, Corpus.generar(nombre));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2Contexto(String nombre) throws IOException {
+        Path comprimido = idaYVuelta(nombre, HuffmanEncoder::encodeContexto);
+        comprobarRangos(comprimido, Corpus.generar(nombre));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2ContextoConLargoMaximo(String nombre) throws IOException {
+        idaYVuelta(nombre, encoder -> {
+            encoder.setLargoMaximo(8);
+            encoder.encodeContexto();
+        });
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void version2Diccionario(String nombre) throws IOException {
+        Path muestra = Corpus.escribir(directorio, "texto");
+        HuffmanDictionary diccionario = HuffmanDictionary.entrenar(7, muestra.toString());
+        Path original = Corpus.escribir(directorio, nombre);
+        Path comprimido = directorio.resolve(nombre + ".huf");
+        HuffmanEncoder encoder = new HuffmanEncoder(original.toString(), comprimido.toString());
+        encoder.setDiccionario(diccionario);
+        encoder.encode();
+
+        Path salida = directorio.resolve(nombre + ".out");
+        HuffmanDecoder decoder = new HuffmanDecoder(comprimido.toString(), salida.toString());
+        decoder.agregarDiccionario(diccionario);
+        decoder.decode();
+        assertArrayEquals(Files.readAllBytes(original), Files.readAllBytes(salida));
+    }
+
+    @ParameterizedTest
+    @MethodSource("bloques")
+    void version3Bloques(String nombre, int subflujos, boolean rachas, int largoMaximo) throws IOException {
+        Path comprimido = idaYVuelta(nombre, encoder -> {
+            encoder.setSubflujos(subflujos);
+            encoder.setRachas(rachas);
+            if (largoMaximo != 0) encoder.setLargoMaximo(largoMaximo);
+            encoder.encodeParalelo(Corpus.BLOQUE);
+        });
+        if (!nombre.equals("vacio")) { // los datos vacíos se comprimen en un archivo vacío, sin cabecera
+            assertEquals(HuffmanFormat.VERSION_BLOQUES, HuffmanFormat.detectarVersion(comprimido.toString()));
+            int esperados = HuffmanFormat.FLAG_CRC | HuffmanFormat.FLAG_CRUDO
+                    | (subflujos > 1 ? HuffmanFormat.FLAG_SUBFLUJOS : 0) | (rachas ? HuffmanFormat.FLAG_RACHAS : 0);
+            assertEquals(esperados, flags(comprimido));
+        }
+        new HuffmanDecoder(comprimido.toString(), null).verify();
+        comprobarRangos(comprimido, Corpus.generar(nombre));
+    }
+
+    @ParameterizedTest
+    @MethodSource("bloques")
+    void version4Flujo(String nombre, int subflujos, boolean rachas, int largoMaximo) throws IOException {
+        if (largoMaximo != 0) return; // los flujos no limitan el largo de los códigos
+        byte[] datos = Corpus.generar(nombre);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new HuffmanOutputStream(bytes, Corpus.BLOQUE, subflujos, rachas)) {
+            for (int i = 0; i < datos.length; i += 10_000) { // escrituras que no coinciden con los bloques
+                output.write(datos, i, Math.min(10_000, datos.length - i));
+            }
+        }
+        byte[] comprimido = bytes.toByteArray();
+        try (InputStream input = new HuffmanInputStream(new ByteArrayInputStream(comprimido), Corpus.BLOQUE)) {
+            assertArrayEquals(datos, input.readAllBytes());
+        }
+
+        Path archivo = Files.write(directorio.resolve(nombre + ".huf"), comprimido);
+        assertEquals(HuffmanFormat.VERSION_FLUJO, HuffmanFormat.detectarVersion(archivo.toString()));
+        assertArrayEquals(datos, decodificar(archivo));
+        new HuffmanDecoder(archivo.toString(), null).verify();
+        comprobarRangos(archivo, datos);
+    }
+
+    @Test
+    void version4FlujoSeguidoDeOtrosDatos() throws IOException {
+        byte[] datos = Corpus.generar("texto");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HuffmanOutputStream output = new HuffmanOutputStream(bytes)) {
+            output.write(datos);
+            output.finish();
+            bytes.write(new byte[]{1, 2, 3});
+        }
+        ByteArrayInputStream entrada = new ByteArrayInputStream(bytes.toByteArray());
+        HuffmanInputStream input = new HuffmanInputStream(entrada);
+        assertArrayEquals(datos, input.readAllBytes());
+        assertArrayEquals(new byte[]{1, 2, 3}, entrada.readAllBytes());
+    }
+
+    @Test
+    void version5Archivo() throws IOException {
+        List<String> archivos = new ArrayList<>();
+        for (String nombre : Corpus.NOMBRES) archivos.add(Corpus.escribir(directorio, nombre).toString());
+        Path contenedor = directorio.resolve("corpus.har");
+        HuffmanArchive.crear(contenedor.toString(), archivos, ForkJoinPool.commonPool());
+
+        assertEquals(HuffmanFormat.VERSION_ARCHIVO, HuffmanFormat.detectarVersion(contenedor.toString()));
+        HuffmanArchive archivo = HuffmanArchive.abrir(contenedor.toString());
+        archivo.verificar(ForkJoinPool.commonPool());
+        new HuffmanDecoder(contenedor.toString(), null).verify();
+        assertEquals(Corpus.NOMBRES.size(), archivo.getEntradas().size());
+        for (HuffmanArchive.Entrada entrada : archivo.getEntradas()) {
+            String nombre = Path.of(entrada.getNombre()).getFileName().toString();
+            byte[] datos = Corpus.generar(nombre);
+            ByteArrayOutputStream extraido = new ByteArrayOutputStream();
+            archivo.extraer(entrada.getNombre(), extraido);
+            assertEquals(datos.length, entrada.getLargoOriginal());
+            assertArrayEquals(datos, extraido.toByteArray(), nombre);
+        }
+
+        Path destino = Files.createDirectory(directorio.resolve("extraidos"));
+        archivo.extraerTodo(destino.toString(), List.of(), ForkJoinPool.commonPool());
+        try (Stream<Path> extraidos = Files.walk(destino)) {
+            assertEquals(Corpus.NOMBRES.size(), extraidos.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * Escribe el corpus, lo comprime con {@code formato}, lo descomprime y compara.
+     *
+     * @return El archivo comprimido.
+     */
+    private Path idaYVuelta(String nombre, Consumer<HuffmanEncoder> formato) throws IOException {
+        Path original = Corpus.escribir(directorio, nombre);
+        Path comprimido = directorio.resolve(nombre + ".huf");
+        formato.accept(new HuffmanEncoder(original.toString(), comprimido.toString()));
+        assertArrayEquals(Files.readAllBytes(original), decodificar(comprimido), nombre);
+        return comprimido;
+    }
+
+    private byte[] decodificar(Path comprimido) throws IOException {
+        Path salida = directorio.resolve(comprimido.getFileName() + ".out");
+        new HuffmanDecoder(comprimido.toString(), salida.toString()).decode();
+        return Files.readAllBytes(salida);
+    }
+
+    /**
+     * Compara rangos al comienzo, a caballo entre bloques, al final y pasando del final.
+     */
+    private static void comprobarRangos(Path comprimido, byte[] datos) throws IOException {
+        HuffmanDecoder decoder = new HuffmanDecoder(comprimido.toString(), null);
+        long[][] rangos = {{0, 100}, {Corpus.BLOQUE - 50, 100}, {datos.length / 3, 5000},
+                {Math.max(0, datos.length - 10), 100}, {datos.length + 10, 10}};
+        for (long[] rango : rangos) {
+            int desde = (int) Math.min(rango[0], datos.length);
+            int hasta = (int) Math.min(rango[0] + rango[1], datos.length);
+            assertArrayEquals(Arrays.copyOfRange(datos, desde, hasta), decoder.decodeRange(rango[0], (int) rango[1]),
+                    "rango " + rango[0]);
+        }
+    }
+
+    private static long[] frecuencias(byte[] datos) {
+        long[] out = new long[256];
+        for (byte b : datos) out[b & 0xFF]++;
+        return out;
+    }
+
+    private static int flags(Path comprimido) throws IOException {
+        byte[] cabecera = new byte[5];
+        try (InputStream input = Files.newInputStream(comprimido)) {
+            assertEquals(5, input.readNBytes(cabecera, 0, 5));
+        }
+        assertTrue(Arrays.equals(HuffmanFormat.MAGIC, Arrays.copyOf(cabecera, 3)));
+        return cabecera[4] & 0xFF;
+    }
+}
@@ -0,0 +1,163 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Largos y códigos de {@link HuffmanTreeBuilder}, con y sin límite: deben cumplir la desigualdad de Kraft con
+ * igualdad (un código de Huffman es un árbol completo), no pasar del límite y costar lo mismo que {@link HuffmanTree}.
+ */
+class HuffmanTreeBuilderTest {
+
+    private final HuffmanTreeBuilder constructor = new HuffmanTreeBuilder(256 + HuffmanBlock.SIMBOLOS_RACHA);
+
+    @Test
+    void sinLimiteEsOptimoYCompleto() {
+        Random random = new Random(42);
+        for (int prueba = 0; prueba < 500; prueba++) {
+            long[] frecuencias = new long[256];
+            int presentes = 2 + random.nextInt(255);
+            for (int i = 0; i < presentes; i++) {
+                frecuencias[random.nextInt(256)] += 1 + random.nextInt(1 << random.nextInt(20));
+            }
+            byte[] largos = new byte[256];
+            long bits = constructor.codeLengths(frecuencias, largos);
+
+            assertEquals(HuffmanTree.costoEnBits(frecuencias, largos), bits);
+            assertEquals(HuffmanTree.costoEnBits(frecuencias, HuffmanTree.of(frecuencias).codeLengths()), bits);
+            assertKraftIgual(largos);
+        }
+    }
+
+    @Test
+    void unSoloSimboloOcupaUnBit() {
+        long[] frecuencias = new long[256];
+        frecuencias['x'] = 10;
+        byte[] largos = new byte[256];
+        assertEquals(10, constructor.codeLengths(frecuencias, largos));
+        assertEquals(1, largos['x']);
+        assertEquals(10, constructor.codeLengths(frecuencias, largos, 1));
+        assertEquals(1, largos['x']);
+    }
+
+    /**
+     * Con el menor límite posible, ceil(log2 n), los códigos tienen que llenar el árbol justo; uno menos no alcanza
+     * para distinguir los símbolos.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 5, 16, 255, 256, 257, 287})
+    void enElLimiteMinimoEsCompleto(int presentes) {
+        long[] frecuencias = fibonacci(presentes); // sin límite, el árbol más profundo posible
+        int limite = Integer.SIZE - Integer.numberOfLeadingZeros(presentes - 1);
+        byte[] largos = new byte[frecuencias.length];
+        long bits = constructor.codeLengths(frecuencias, largos, limite);
+
+        assertEquals(HuffmanTree.costoEnBits(frecuencias, largos), bits);
+        assertTrue(maximo(largos) <= limite);
+        assertKraftIgual(largos);
+        assertThrows(IllegalArgumentException.class, () -> constructor.codeLengths(frecuencias, largos, limite - 1));
+    }
+
+    /**
+     * Entre el límite mínimo y el largo sin límite, cada bit más de límite no puede empeorar la compresión; desde el
+     * largo sin límite, package-merge cuesta lo mismo que Huffman.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {20, 40, 60})
+    void cadaLimiteEsCompletoYNoEmpeora(int presentes) {
+        long[] frecuencias = fibonacci(presentes);
+        byte[] sinLimite = new byte[presentes];
+        long optimo = constructor.codeLengths(frecuencias, sinLimite);
+        int minimo = Integer.SIZE - Integer.numberOfLeadingZeros(presentes - 1);
+        long anterior = Long.MAX_VALUE;
+        for (int limite = minimo; limite <= maximo(sinLimite) + 1; limite++) {
+            byte[] largos = new byte[presentes];
+            long bits = constructor.codeLengths(frecuencias, largos, limite);
+            assertTrue(maximo(largos) <= limite);
+            assertKraftIgual(largos);
+            assertTrue(bits <= anterior, "límite " + limite);
+            assertTrue(bits >= optimo);
+            anterior = bits;
+        }
+        assertEquals(optimo, anterior);
+    }
+
+    @Test
+    void igualQueHuffmanTreeConLimite() {
+        Random random = new Random(7);
+        for (int prueba = 0; prueba < 300; prueba++) {
+            long[] frecuencias = new long[1 + random.nextInt(287)];
+            for (int i = 0; i < frecuencias.length; i++) {
+                if (random.nextInt(4) != 0) frecuencias[i] = 1L << random.nextInt(30);
+            }
+            int limite = 9 + random.nextInt(10);
+            byte[] largos = new byte[frecuencias.length];
+            constructor.codeLengths(frecuencias, largos, limite);
+            assertArrayEquals(HuffmanTree.codeLengths(frecuencias, limite), largos);
+        }
+    }
+
+    @Test
+    void codigosIgualesQueCanonicalCode() {
+        long[] frecuencias = fibonacci(40);
+        byte[] largos = new byte[frecuencias.length];
+        constructor.codeLengths(frecuencias, largos, 12);
+        long[] codigos = new long[largos.length];
+        constructor.codes(largos, codigos);
+
+        CanonicalCode canonico = new CanonicalCode(largos);
+        CanonicalCode precalculado = new CanonicalCode(largos.clone(), codigos.clone());
+        for (int s = 0; s < largos.length; s++) {
+            assertEquals(canonico.code(s), codigos[s]);
+            assertEquals(canonico.code(s), precalculado.code(s));
+            assertEquals(canonico.length(s), precalculado.length(s));
+        }
+    }
+
+    @Test
+    void rechazaLargosQueNoSonPrefijo() {
+        byte[] largos = {1, 1, 1};
+        assertThrows(IllegalArgumentException.class, () -> constructor.codes(largos, new long[3]));
+        assertThrows(IllegalArgumentException.class, () -> new CanonicalCode(largos));
+    }
+
+    /** Frecuencias de Fibonacci: el árbol de Huffman sin límite tiene un símbolo en cada nivel. */
+    static long[] fibonacci(int presentes) {
+        long[] out = new long[presentes];
+        long a = 1, b = 1;
+        for (int i = 0; i < presentes; i++) {
+            out[i] = a;
+            long c = Math.min(a + b, 1L << 40); // sin pasar de lo que admite el constructor
+            a = b;
+            b = c;
+        }
+        return out;
+    }
+
+    static int maximo(byte[] largos) {
+        int out = 0;
+        for (byte largo : largos) out = Math.max(out, largo & 0xFF);
+        return out;
+    }
+
+    /**
+     * Comprueba que la suma de 2^-largo de los símbolos presentes sea exactamente 1.
+     */
+    static void assertKraftIgual(byte[] largos) {
+        int maximo = maximo(largos);
+        assertTrue(maximo < Long.SIZE - 1, "largo " + maximo);
+        long suma = 0;
+        for (byte largo : largos) {
+            if (largo != 0) suma += 1L << (maximo - largo);
+        }
+        assertEquals(1L << maximo, suma, "suma de Kraft");
+    }
+}